@@ -0,0 +1,91 @@
+package crypto.benchmarks;
+
+import java.util.Random;
+
+import crypto.Decrypt;
+
+/**
+ * Generation of the messages and keys used by the benchmarks. Everything is drawn from a fixed seed
+ * so that two runs measure exactly the same work.
+ */
+
+final class BenchmarkData {
+
+	private static final long SEED = 107;
+
+	private BenchmarkData() {}
+
+	/**
+	 * Generates a text of lower case letters and spaces, the letters following the English frequencies
+	 * @param size the length of the text
+	 * @return the text as a byte array
+	 */
+
+	static byte[] englishText(int size) {
+
+		Random random = new Random(SEED);
+		byte[] text = new byte[size];
+
+		double total = 0;
+		for (double frequency : Decrypt.ENGLISHFREQUENCIES) {
+			total += frequency;
+		}
+
+		for (int i = 0; i < size; i++) {
+
+			// Environ un espace tous les six caractères, comme dans un texte anglais
+
+			if (random.nextInt(6) == 0) {
+
+				text[i] = ' ';
+				continue;
+			}
+
+			double x = random.nextDouble() * total;
+			int letter = 0;
+
+			while (letter < Decrypt.ENGLISHFREQUENCIES.length - 1 && x > Decrypt.ENGLISHFREQUENCIES[letter]) {
+
+				x -= Decrypt.ENGLISHFREQUENCIES[letter];
+				letter++;
+			}
+
+			text[i] = (byte) ('a' + letter);
+		}
+
+		return text;
+	}
+
+	/**
+	 * Generates a key whose bytes never turn a letter into a space, so that the cipher texts can be broken
+	 * @param length the length of the key
+	 * @return the key
+	 */
+
+	static byte[] key(int length) {
+
+		Random random = new Random(SEED + length);
+		byte[] key = new byte[length];
+
+		for (int i = 0; i < length; i++) {
+
+			key[i] = (byte) (1 + random.nextInt(60));
+		}
+
+		return key;
+	}
+
+	/**
+	 * Generates random bytes, for the one time pads and the iv
+	 * @param length the number of bytes
+	 * @return the random bytes
+	 */
+
+	static byte[] randomBytes(int length) {
+
+		byte[] bytes = new byte[length];
+		new Random(SEED * 31 + length).nextBytes(bytes);
+
+		return bytes;
+	}
+}
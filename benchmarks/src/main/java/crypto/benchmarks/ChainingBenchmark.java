@@ -0,0 +1,88 @@
+package crypto.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import crypto.Bonus61;
+import crypto.Decrypt;
+import crypto.Encrypt;
+
+/**
+ * Throughput of the one time pad and of the CBC modes, which always encode spaces.
+ * keyLength is the length of the iv, and of the Vigenere key of the modified CBC.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ChainingBenchmark {
+
+	@Param({"1024", "65536", "1048576", "67108864"})
+	public int size;
+
+	@Param({"1", "8", "64"})
+	public int keyLength;
+
+	private byte[] plainText;
+	private byte[] pad;
+	private byte[] iv;
+	private byte[] key;
+	private byte[] cbcCipher;
+	private byte[] modifiedCbcCipher;
+
+	@Setup
+	public void setup() {
+
+		plainText = BenchmarkData.englishText(size);
+		pad = BenchmarkData.randomBytes(size);
+		iv = BenchmarkData.randomBytes(keyLength);
+		key = BenchmarkData.key(keyLength);
+
+		cbcCipher = Encrypt.cbc(plainText, iv);
+		modifiedCbcCipher = Bonus61.modifiedCBC(plainText, iv, key);
+	}
+
+	@Benchmark
+	public byte[] oneTimePad() {
+
+		return Encrypt.oneTimePad(plainText, pad);
+	}
+
+	@Benchmark
+	public byte[] cbc() {
+
+		return Encrypt.cbc(plainText, iv);
+	}
+
+	@Benchmark
+	public byte[] decryptCBC() {
+
+		return Decrypt.decryptCBC(cbcCipher, iv);
+	}
+
+	@Benchmark
+	public byte[] modifiedCBC() {
+
+		return Bonus61.modifiedCBC(plainText, iv, key);
+	}
+
+	@Benchmark
+	public byte[] decryptModifiedCBC() {
+
+		return Bonus61.decryptModifiedCBC(modifiedCbcCipher, iv, key);
+	}
+}
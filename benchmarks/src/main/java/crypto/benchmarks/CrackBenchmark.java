@@ -0,0 +1,94 @@
+package crypto.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import crypto.Autocorrelation;
+import crypto.Decrypt;
+import crypto.Encrypt;
+
+/**
+ * Time taken by the frequency analysis attacks of Decrypt.
+ * Once the spaces are removed, the 1 KB text stays under Decrypt.FFTTHRESHOLD and its coincidences are counted
+ * by the quadratic loop, while the larger ones go through the FFT of Autocorrelation.
+ * Counting the coincidences of every shift grows faster than linearly, so the default sizes stop at 1 MB;
+ * larger sizes can be asked for on the command line with -p size=...
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CrackBenchmark {
+
+	@Param({"1024", "65536", "1048576"})
+	public int size;
+
+	@Param({"1", "8", "64"})
+	public int keyLength;
+
+	private byte[] caesarCipher;
+	private byte[] vigenereCipher;
+	private byte[] vigenereCipherNoSpace;
+
+	@Setup
+	public void setup() {
+
+		byte[] plainText = BenchmarkData.englishText(size);
+		byte[] key = BenchmarkData.key(keyLength);
+
+		caesarCipher = Encrypt.caesar(plainText, key[0]);
+		vigenereCipher = Encrypt.vigenere(plainText, key);
+
+		vigenereCipherNoSpace = vigenereCipher.clone();
+		int length = Decrypt.removeSpaces(vigenereCipherNoSpace, vigenereCipherNoSpace.length);
+		vigenereCipherNoSpace = Arrays.copyOf(vigenereCipherNoSpace, length);
+	}
+
+	@Benchmark
+	public byte caesarWithFrequencies() {
+
+		return Decrypt.caesarWithFrequencies(caesarCipher);
+	}
+
+	@Benchmark
+	public byte[] vigenereWithFrequencies() {
+
+		return Decrypt.vigenereWithFrequencies(vigenereCipher);
+	}
+
+	/**
+	 * Decrypt.getCoincidences is private : the key length search with every shift goes through it,
+	 * choosing between the quadratic loop and the FFT with Decrypt.FFTTHRESHOLD
+	 */
+
+	@Benchmark
+	public int getCoincidences() {
+
+		return Decrypt.vigenereFindKeyLength(vigenereCipherNoSpace, vigenereCipherNoSpace.length, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * The coincidences of the first Decrypt.MAXSHIFT shifts only, as counted by breakCipher and vigenereWithFrequencies
+	 */
+
+	@Benchmark
+	public int[] getBoundedCoincidences() {
+
+		return Autocorrelation.coincidences(vigenereCipherNoSpace, vigenereCipherNoSpace.length, Decrypt.MAXSHIFT);
+	}
+}
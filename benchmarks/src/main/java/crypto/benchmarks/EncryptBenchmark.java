@@ -0,0 +1,67 @@
+package crypto.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import crypto.Encrypt;
+
+/**
+ * Throughput of the single key schemes of Encrypt, which have a spaceEncoding flag
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class EncryptBenchmark {
+
+	@Param({"1024", "65536", "1048576", "67108864"})
+	public int size;
+
+	@Param({"1", "8", "64"})
+	public int keyLength;
+
+	@Param({"false", "true"})
+	public boolean spaceEncoding;
+
+	private byte[] plainText;
+	private byte[] keyword;
+
+	@Setup
+	public void setup() {
+
+		plainText = BenchmarkData.englishText(size);
+		keyword = BenchmarkData.key(keyLength);
+	}
+
+	@Benchmark
+	public byte[] caesar() {
+
+		return Encrypt.caesar(plainText, keyword[0], spaceEncoding);
+	}
+
+	@Benchmark
+	public byte[] xor() {
+
+		return Encrypt.xor(plainText, keyword[0], spaceEncoding);
+	}
+
+	@Benchmark
+	public byte[] vigenere() {
+
+		return Encrypt.vigenere(plainText, keyword, spaceEncoding);
+	}
+}
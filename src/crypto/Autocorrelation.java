@@ -0,0 +1,239 @@
+package crypto;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Computes the number of coincidences of a text with itself for every shift at once, in O(n log n).
+ * For a symbol s with indicator vector x_s (1 where the text contains s, 0 elsewhere), the coincidences of s
+ * for the shift k are the autocorrelation sum_j x_s[j] * x_s[j + k]. The autocorrelation is the inverse Fourier
+ * transform of the power spectrum |FFT(x_s)|^2, and the transform is linear, so the power spectra of all the
+ * symbols are added and a single inverse transform gives the total coincidences for every shift.
+ * When only the first shifts are needed, the bounded version compares the text with itself 8 bytes at a time
+ * for each shift, which is linear in the size of the text.
+ */
+
+public class Autocorrelation {
+
+	/**
+	 * Method that counts the number of coincidences in the text for each shift, same result as the quadratic count
+	 * @param cipher the byte array representing the encoded text without space
+	 * @param length the number of bytes of the array to use
+	 * @return a table of the number of coincidences for each shift : index i for the shift i + 1
+	 */
+
+	public static int[] coincidences(byte[] cipher, int length) {
+
+		assert(cipher != null);
+		assert(length >= 1 && length <= cipher.length);
+
+		// Taille de la transformée : au moins 2 * length pour que la corrélation ne se replie pas sur elle-même
+
+		int size = Integer.highestOneBit(Math.max(1, 2 * length - 1));
+		if (size < 2 * length - 1) {
+			size <<= 1;
+		}
+
+		int[] histogram = new int[Decrypt.ALPHABETSIZE];
+
+		for (int i = 0; i < length; i++) {
+
+			histogram[cipher[i] + 128]++;
+		}
+
+		double[] cos = new double[size / 2];
+		double[] sin = new double[size / 2];
+
+		for (int i = 0; i < size / 2; i++) {
+
+			double angle = -2 * Math.PI * i / size;
+			cos[i] = Math.cos(angle);
+			sin[i] = Math.sin(angle);
+		}
+
+		double[] power = new double[size];
+		double[] re = new double[size];
+		double[] im = new double[size];
+
+		/* On transforme deux symboles à la fois : a dans la partie réelle et b dans la partie imaginaire.
+		 * Comme a et b sont réels, |A[k]|^2 + |B[k]|^2 = (|X[k]|^2 + |X[size - k]|^2) / 2 avec X = FFT(a + ib).
+		 */
+
+		int symbol = 0;
+
+		while (true) {
+
+			int first = nextSymbol(histogram, symbol);
+			if (first == -1) {
+				break;
+			}
+
+			int second = nextSymbol(histogram, first + 1);
+
+			for (int i = 0; i < length; i++) {
+
+				int current = cipher[i] + 128;
+				re[i] = (current == first) ? 1 : 0;
+				im[i] = (current == second) ? 1 : 0;
+			}
+
+			Arrays.fill(re, length, size, 0);
+			Arrays.fill(im, length, size, 0);
+
+			fft(re, im, cos, sin);
+
+			for (int k = 0; k < size; k++) {
+
+				int mirror = (size - k) & (size - 1);
+				power[k] += (re[k] * re[k] + im[k] * im[k] + re[mirror] * re[mirror] + im[mirror] * im[mirror]) / 2;
+			}
+
+			if (second == -1) {
+				break;
+			}
+
+			symbol = second + 1;
+		}
+
+		// Transformée inverse du spectre (réel et symétrique) : on réutilise la FFT directe sur le conjugué
+
+		System.arraycopy(power, 0, re, 0, size);
+		Arrays.fill(im, 0);
+		fft(re, im, cos, sin);
+
+		int[] coincidences = new int[length - 1];
+
+		for (int shift = 1; shift < length; shift++) {
+
+			coincidences[shift - 1] = (int) Math.round(re[shift] / size);
+		}
+
+		return coincidences;
+	}
+
+	/**
+	 * Method that counts the number of coincidences in the text for the shifts 1 to maxShift only.
+	 * For each shift, the bytes are compared 8 by 8 : the XOR of two words has a zero byte for each coincidence,
+	 * and the zero bytes are counted with a SWAR test. The shifts are spread over the threads of the common pool.
+	 * @param cipher the byte array representing the encoded text without space
+	 * @param length the number of bytes of the array to use
+	 * @param maxShift the largest shift to test
+	 * @return a table of the number of coincidences for each shift : index i for the shift i + 1
+	 */
+
+	public static int[] coincidences(byte[] cipher, int length, int maxShift) {
+
+		assert(cipher != null);
+		assert(length >= 1 && length <= cipher.length);
+		assert(maxShift >= 1);
+
+		int[] coincidences = new int[Math.min(maxShift, length - 1)];
+
+		IntStream.rangeClosed(1, coincidences.length).parallel().forEach(shift ->
+				coincidences[shift - 1] = countCoincidences(cipher, length, shift));
+
+		return coincidences;
+	}
+
+	/**
+	 * @return the number of indices j such that cipher[j] == cipher[j + shift]
+	 */
+
+	private static int countCoincidences(byte[] cipher, int length, int shift) {
+
+		int end = length - shift;
+		int count = 0;
+		int j = 0;
+
+		for (; j + Long.BYTES <= end; j += Long.BYTES) {
+
+			long difference = (long) XorKernel.LONGS.get(cipher, j) ^ (long) XorKernel.LONGS.get(cipher, j + shift);
+			count += Long.bitCount(XorKernel.zeroBytes(difference));
+		}
+
+		for (; j < end; j++) {
+
+			if (cipher[j] == cipher[j + shift]) {
+
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * @return the next symbol of the histogram, starting at from, that appears in the text, or -1 if there is none
+	 */
+
+	private static int nextSymbol(int[] histogram, int from) {
+
+		for (int i = from; i < histogram.length; i++) {
+
+			if (histogram[i] != 0) {
+
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * In place iterative radix-2 Fourier transform
+	 * @param re the real parts, of a length which is a power of two
+	 * @param im the imaginary parts
+	 * @param cos the cosines of the twiddle factors, of half the length
+	 * @param sin the sines of the twiddle factors, of half the length
+	 */
+
+	private static void fft(double[] re, double[] im, double[] cos, double[] sin) {
+
+		int n = re.length;
+
+		// Permutation par inversion des bits
+
+		for (int i = 1, j = 0; i < n; i++) {
+
+			int bit = n >> 1;
+
+			for (; (j & bit) != 0; bit >>= 1) {
+				j ^= bit;
+			}
+
+			j ^= bit;
+
+			if (i < j) {
+
+				double tmp = re[i]; re[i] = re[j]; re[j] = tmp;
+				tmp = im[i]; im[i] = im[j]; im[j] = tmp;
+			}
+		}
+
+		for (int length = 2; length <= n; length <<= 1) {
+
+			int half = length >> 1;
+			int step = n / length;
+
+			for (int start = 0; start < n; start += length) {
+
+				for (int k = 0; k < half; k++) {
+
+					double wr = cos[k * step];
+					double wi = sin[k * step];
+
+					int a = start + k;
+					int b = a + half;
+
+					double xr = re[b] * wr - im[b] * wi;
+					double xi = re[b] * wi + im[b] * wr;
+
+					re[b] = re[a] - xr;
+					im[b] = im[a] - xi;
+					re[a] += xr;
+					im[a] += xi;
+				}
+			}
+		}
+	}
+}
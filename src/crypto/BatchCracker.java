@@ -0,0 +1,334 @@
+package crypto;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Runs Decrypt.breakCipher on many cipher texts concurrently.
+ * Each message is cracked in its own virtual thread (or in a pool of daemon threads when the Java version
+ * has no virtual threads), and the results are returned in the order in which they finish.
+ * A slot is taken for each message and given back only when its result is read, so at most maxConcurrency
+ * messages are being cracked or waiting to be read : a slow reader stops the reading of the cipher texts,
+ * and a stream of messages is never loaded in memory at once. A cipher text which cannot be read, or a message
+ * which cannot be cracked, gives a result with an error. The cracker must be closed, even if the results are not all read.
+ */
+
+public class BatchCracker implements AutoCloseable {
+
+	// Résultat posé dans la file une fois tous les messages distribués
+	private static final CrackResult END = new CrackResult(-1, null, 0, null);
+
+	private final ExecutorService executor;
+	private final int maxConcurrency;
+
+	/**
+	 * @param maxConcurrency the maximum number of messages cracked at the same time
+	 */
+
+	public BatchCracker(int maxConcurrency) {
+
+		assert(maxConcurrency > 0);
+
+		this.maxConcurrency = maxConcurrency;
+		this.executor = newExecutor();
+	}
+
+	/**
+	 * Creates a cracker allowing as many messages at the same time as there are processors
+	 */
+
+	public BatchCracker() {
+
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Method that cracks a collection of cipher texts
+	 * @param ciphers the cipher texts
+	 * @param type the integer representing the method to break : 0 = Caesar, 1 = Vigenere, 2 = XOR
+	 * @return the results, in the order in which they finish
+	 */
+
+	public Iterable<CrackResult> crack(Collection<String> ciphers, int type) {
+
+		assert(ciphers != null);
+
+		return () -> start(ciphers.stream(), type);
+	}
+
+	/**
+	 * Method that cracks a stream of cipher texts. The stream is consumed once, when the results are iterated.
+	 * @param ciphers the cipher texts
+	 * @param type the integer representing the method to break : 0 = Caesar, 1 = Vigenere, 2 = XOR
+	 * @return the results, in the order in which they finish
+	 */
+
+	public Iterator<CrackResult> crack(Stream<String> ciphers, int type) {
+
+		assert(ciphers != null);
+
+		return start(ciphers, type);
+	}
+
+	private Iterator<CrackResult> start(Stream<String> ciphers, int type) {
+
+		// Chaque résultat dans la file garde son slot : la file ne contient jamais plus de maxConcurrency résultats et END
+
+		BlockingQueue<CrackResult> results = new LinkedBlockingQueue<CrackResult>(maxConcurrency + 1);
+		Semaphore slots = new Semaphore(maxConcurrency);
+		AtomicLong total = new AtomicLong(-1);
+
+		executor.execute(new Dispatcher(ciphers, type, results, slots, total));
+
+		return new Iterator<CrackResult>() {
+
+			private long received = 0;
+			private CrackResult next = null;
+
+			@Override
+			public boolean hasNext() {
+
+				while (next == null && (total.get() == -1 || received < total.get())) {
+
+					CrackResult result;
+
+					try {
+
+						result = results.take();
+
+					} catch (InterruptedException e) {
+
+						Thread.currentThread().interrupt();
+						throw new IllegalStateException("Interrupted while waiting for a result", e);
+					}
+
+					if (result != END) {
+
+						next = result;
+						received++;
+						slots.release();
+					}
+				}
+
+				return next != null;
+			}
+
+			@Override
+			public CrackResult next() {
+
+				if (!hasNext()) {
+
+					throw new NoSuchElementException();
+				}
+
+				CrackResult result = next;
+				next = null;
+
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * Stops the cracking : the reading of the cipher texts is interrupted, the running messages are interrupted,
+	 * and the messages which did not start give a CancellationException. The results already started can still be read.
+	 */
+
+	@Override
+	public void close() {
+
+		for (Runnable task : executor.shutdownNow()) {
+
+			if (task instanceof Dispatcher) {
+
+				((Dispatcher) task).cancel();
+
+			} else if (task instanceof Job) {
+
+				((Job) task).cancel();
+			}
+		}
+	}
+
+	//-----------------------Tasks-------------------------
+
+	/**
+	 * Task reading the cipher texts and starting a job for each of them, when a slot is free
+	 */
+
+	private final class Dispatcher implements Runnable {
+
+		private final Stream<String> ciphers;
+		private final int type;
+		private final BlockingQueue<CrackResult> results;
+		private final Semaphore slots;
+		private final AtomicLong total;
+
+		Dispatcher(Stream<String> ciphers, int type, BlockingQueue<CrackResult> results, Semaphore slots, AtomicLong total) {
+
+			this.ciphers = ciphers;
+			this.type = type;
+			this.results = results;
+			this.slots = slots;
+			this.total = total;
+		}
+
+		@Override
+		public void run() {
+
+			long count = 0;
+
+			try {
+
+				Iterator<String> iterator = null;
+
+				while (true) {
+
+					// Le slot est pris avant de lire : une erreur de lecture devient un résultat qui a le sien
+
+					slots.acquire();
+
+					String cipher;
+
+					try {
+
+						if (iterator == null) {
+
+							iterator = ciphers.iterator();
+						}
+
+						if (!iterator.hasNext()) {
+
+							slots.release();
+							break;
+						}
+
+						cipher = iterator.next();
+
+					} catch (RuntimeException e) {
+
+						results.add(new CrackResult(count, null, 0, e));
+						count++;
+						break;
+					}
+
+					try {
+
+						executor.execute(new Job(count, cipher, type, results));
+
+					} catch (RejectedExecutionException e) {
+
+						// Le cracker a été fermé : ce message ne sera jamais traité ni attendu
+
+						slots.release();
+						break;
+					}
+
+					count++;
+				}
+
+			} catch (InterruptedException e) {
+
+				// close() a interrompu la lecture
+
+				Thread.currentThread().interrupt();
+
+			} finally {
+
+				total.set(count);
+				results.add(END);
+			}
+		}
+
+		/**
+		 * Called when the cracker is closed before the task started
+		 */
+
+		void cancel() {
+
+			total.set(0);
+			results.add(END);
+		}
+	}
+
+	/**
+	 * Task cracking one message
+	 */
+
+	private static final class Job implements Runnable {
+
+		private final long index;
+		private final String cipher;
+		private final int type;
+		private final BlockingQueue<CrackResult> results;
+
+		Job(long index, String cipher, int type, BlockingQueue<CrackResult> results) {
+
+			this.index = index;
+			this.cipher = cipher;
+			this.type = type;
+			this.results = results;
+		}
+
+		@Override
+		public void run() {
+
+			long start = System.nanoTime();
+
+			try {
+
+				String plainText = Decrypt.breakCipher(cipher, type);
+				results.add(new CrackResult(index, plainText, System.nanoTime() - start, null));
+
+			} catch (Exception e) {
+
+				results.add(new CrackResult(index, null, System.nanoTime() - start, e));
+
+			} catch (Error e) {
+
+				// Le résultat est tout de même donné, sinon le lecteur l'attendrait pour toujours
+
+				results.add(new CrackResult(index, null, System.nanoTime() - start, e));
+				throw e;
+			}
+		}
+
+		/**
+		 * Called when the cracker is closed before the task started
+		 */
+
+		void cancel() {
+
+			results.add(new CrackResult(index, null, 0, new CancellationException("The batch cracker was closed")));
+		}
+	}
+
+	private static ExecutorService newExecutor() {
+
+		// Les threads virtuels n'existent qu'à partir de Java 21 : on les cherche par réflexion
+
+		try {
+
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+
+		} catch (ReflectiveOperationException e) {
+
+			return Executors.newCachedThreadPool(runnable -> {
+
+				Thread thread = new Thread(runnable, "batch-cracker");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package crypto;
+
+/**
+ * CBC engine running any BlockCipher, generalising Bonus61.modifiedCBC which was hard-wired to Vigenere.
+ * Each block of the plain text is XORed with the previous cipher block (the iv for the first one) and then encoded
+ * by the block cipher, directly in the destination array : no block is allocated, the previous cipher block is
+ * read where it was written. The blocks have the size of the iv and the last one can be shorter.
+ */
+
+public class BlockCBC {
+
+	/**
+	 * Method that encodes a byte array with CBC over a block cipher
+	 * @param plainText the byte array representing the message to encode
+	 * @param iv the initial pad, which gives the size of the blocks
+	 * @param cipher the transformation applied to each block
+	 * @return an encoded byte array
+	 */
+
+	public static byte[] encrypt(byte[] plainText, byte[] iv, BlockCipher cipher) {
+
+		assert(plainText != null);
+
+		byte[] cipherText = new byte[plainText.length];
+
+		encrypt(plainText, 0, cipherText, 0, plainText.length, iv, cipher);
+
+		return cipherText;
+	}
+
+	/**
+	 * Method that encodes a part of a byte array with CBC over a block cipher, writing the result in a given array
+	 * src and dst can be the same array (with the same offset) to encode in place. The iv is not modified.
+	 * @param src the byte array containing the bytes to encode
+	 * @param srcOff the index of the first byte to encode in src
+	 * @param dst the byte array receiving the encoded bytes
+	 * @param dstOff the index in dst of the first encoded byte
+	 * @param len the number of bytes to encode
+	 * @param iv the initial pad, which gives the size of the blocks
+	 * @param cipher the transformation applied to each block
+	 */
+
+	public static void encrypt(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] iv, BlockCipher cipher) {
+
+		assert(src != null);
+		assert(dst != null);
+		assert(iv != null);
+		assert(iv.length > 0);
+		assert(cipher != null);
+
+		int blockSize = iv.length;
+
+		for (int start = 0; start < len; start += blockSize) {
+
+			int length = Math.min(blockSize, len - start);
+
+			// Le bloc précédent est lu directement dans dst, là où il vient d'être écrit
+
+			if (start == 0) {
+
+				XorKernel.xor(src, srcOff, iv, 0, dst, dstOff, length);
+
+			} else {
+
+				XorKernel.xor(src, srcOff + start, dst, dstOff + start - blockSize, dst, dstOff + start, length);
+			}
+
+			cipher.encrypt(dst, dstOff + start, length);
+		}
+	}
+
+	/**
+	 * Method that decodes a byte array encoded with CBC over a block cipher
+	 * @param cipherText the byte array representing the encoded message
+	 * @param iv the initial pad used to encode
+	 * @param cipher the transformation used to encode each block
+	 * @return the clear text
+	 */
+
+	public static byte[] decrypt(byte[] cipherText, byte[] iv, BlockCipher cipher) {
+
+		assert(cipherText != null);
+
+		byte[] plainText = new byte[cipherText.length];
+
+		decrypt(cipherText, 0, plainText, 0, cipherText.length, iv, cipher);
+
+		return plainText;
+	}
+
+	/**
+	 * Method that decodes a part of a byte array encoded with CBC over a block cipher, writing the result in a given array
+	 * src and dst can be the same array (with the same offset) to decode in place. The iv is not modified.
+	 * @param src the byte array containing the bytes to decode
+	 * @param srcOff the index of the first byte to decode in src
+	 * @param dst the byte array receiving the decoded bytes
+	 * @param dstOff the index in dst of the first decoded byte
+	 * @param len the number of bytes to decode
+	 * @param iv the initial pad used to encode
+	 * @param cipher the transformation used to encode each block
+	 */
+
+	public static void decrypt(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] iv, BlockCipher cipher) {
+
+		assert(src != null);
+		assert(dst != null);
+		assert(src != dst || srcOff == dstOff);
+		assert(iv != null);
+		assert(iv.length > 0);
+		assert(cipher != null);
+
+		int blockSize = iv.length;
+
+		/* Chaque bloc clair ne dépend que de son bloc crypté et du bloc crypté précédent.
+		 * On part du dernier bloc pour que, en place, le bloc crypté précédent ne soit pas encore écrasé.
+		 */
+
+		for (int start = (len - 1) / blockSize * blockSize; start >= 0; start -= blockSize) {
+
+			int length = Math.min(blockSize, len - start);
+
+			if (src != dst) {
+
+				System.arraycopy(src, srcOff + start, dst, dstOff + start, length);
+			}
+
+			cipher.decrypt(dst, dstOff + start, length);
+
+			if (start == 0) {
+
+				XorKernel.xor(dst, dstOff, iv, 0, dst, dstOff, length);
+
+			} else {
+
+				XorKernel.xor(dst, dstOff + start, src, srcOff + start - blockSize, dst, dstOff + start, length);
+			}
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package crypto;
+
+/**
+ * Counter mode over a BlockCipher. The keystream block number n is the iv with n XORed into its first bytes
+ * (little endian), encoded by the block cipher, and the message is XORed with the keystream.
+ * As each keystream block only depends on its number, any part of the message can be encoded or decoded on its own :
+ * the driver splits the message in chunks handled in parallel by ParallelCipher, and apply gives random access.
+ * Encoding and decoding are the same operation.
+ * When the iv is shorter than 8 bytes, only the low bytes of the counter are used and the keystream repeats
+ * after 256^(iv length) blocks, so an iv of at least 8 bytes is advised.
+ */
+
+public class BlockCTR {
+
+	/**
+	 * Method that encodes a byte array in counter mode, in parallel for long messages
+	 * @param plainText the byte array representing the message to encode
+	 * @param iv the initial counter block, which gives the size of the blocks
+	 * @param cipher the transformation producing the keystream blocks
+	 * @return an encoded byte array
+	 */
+
+	public static byte[] encrypt(byte[] plainText, byte[] iv, BlockCipher cipher) {
+
+		assert(plainText != null);
+		assert(iv != null);
+		assert(cipher != null);
+
+		byte[] cipherText = new byte[plainText.length];
+
+		ParallelCipher.forEachChunk(plainText.length, (chunk, offset, length) ->
+				apply(plainText, offset, cipherText, offset, length, iv, cipher, offset));
+
+		return cipherText;
+	}
+
+	/**
+	 * Method that decodes a byte array encoded in counter mode, in parallel for long messages
+	 * @param cipherText the byte array representing the encoded message
+	 * @param iv the initial counter block used to encode
+	 * @param cipher the transformation used to produce the keystream blocks
+	 * @return the clear text
+	 */
+
+	public static byte[] decrypt(byte[] cipherText, byte[] iv, BlockCipher cipher) {
+
+		return encrypt(cipherText, iv, cipher);
+	}
+
+	/**
+	 * Method that encodes (or decodes) a part of a message in counter mode, starting at any position of the message.
+	 * src and dst can be the same array (with the same offset) to work in place.
+	 * @param src the byte array containing the bytes to transform
+	 * @param srcOff the index of the first byte to transform in src
+	 * @param dst the byte array receiving the transformed bytes
+	 * @param dstOff the index in dst of the first transformed byte
+	 * @param len the number of bytes to transform
+	 * @param iv the initial counter block, which gives the size of the blocks
+	 * @param cipher the transformation producing the keystream blocks
+	 * @param position the position in the whole message of the byte src[srcOff]
+	 */
+
+	public static void apply(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] iv, BlockCipher cipher, long position) {
+
+		assert(src != null);
+		assert(dst != null);
+		assert(iv != null);
+		assert(iv.length > 0);
+		assert(cipher != null);
+		assert(position >= 0);
+
+		int blockSize = iv.length;
+		byte[] keystream = new byte[blockSize];
+
+		long counter = position / blockSize;
+		int inBlock = (int) (position % blockSize);
+		int done = 0;
+
+		while (done < len) {
+
+			keystreamBlock(keystream, iv, cipher, counter);
+
+			// Seul le premier bloc peut commencer au milieu du keystream
+
+			int length = Math.min(blockSize - inBlock, len - done);
+			XorKernel.xor(src, srcOff + done, keystream, inBlock, dst, dstOff + done, length);
+
+			done += length;
+			inBlock = 0;
+			counter++;
+		}
+	}
+
+	/**
+	 * Computes the keystream block of the given number into the given array
+	 */
+
+	private static void keystreamBlock(byte[] keystream, byte[] iv, BlockCipher cipher, long counter) {
+
+		System.arraycopy(iv, 0, keystream, 0, iv.length);
+
+		for (int i = 0; i < Math.min(Long.BYTES, keystream.length); i++) {
+
+			keystream[i] ^= (byte) (counter >>> (8 * i));
+		}
+
+		cipher.encrypt(keystream, 0, keystream.length);
+	}
+}
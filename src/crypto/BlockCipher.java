@@ -0,0 +1,188 @@
+package crypto;
+
+/**
+ * Transformation applied to each block by the CBC engine of BlockCBC, in place.
+ * The last block of a message can be shorter than the others : as in Bonus61, the transformation of a byte
+ * may only depend on its value and on its position in the block, so that a partial block is simply the beginning
+ * of a full one. The implementations below keep all their state in final fields and never allocate.
+ */
+
+public interface BlockCipher {
+
+	/**
+	 * Encodes a block in place
+	 * @param block the array containing the block
+	 * @param offset the index of the first byte of the block
+	 * @param length the number of bytes of the block
+	 */
+
+	void encrypt(byte[] block, int offset, int length);
+
+	/**
+	 * Decodes a block encoded by encrypt, in place
+	 * @param block the array containing the block
+	 * @param offset the index of the first byte of the block
+	 * @param length the number of bytes of the block
+	 */
+
+	void decrypt(byte[] block, int offset, int length);
+
+	//-----------------------Vigenere-------------------------
+
+	/**
+	 * Vigenere encoding of the block, the keyword starts again at the beginning of each block and spaces are encoded
+	 */
+
+	final class Vigenere implements BlockCipher {
+
+		private final byte[] keyword;
+		private final byte[] inverse;
+
+		public Vigenere(byte[] keyword) {
+
+			assert(keyword != null);
+			assert(keyword.length > 0);
+
+			this.keyword = keyword.clone();
+			this.inverse = new byte[keyword.length];
+
+			// On inverse la clé de cryptage une seule fois pour avoir celle de décryptage
+
+			for (int i = 0; i < keyword.length; i++) {
+
+				inverse[i] = (byte) (-keyword[i]);
+			}
+		}
+
+		@Override
+		public void encrypt(byte[] block, int offset, int length) {
+
+			Encrypt.vigenere(block, offset, block, offset, length, keyword, 0, true);
+		}
+
+		@Override
+		public void decrypt(byte[] block, int offset, int length) {
+
+			Encrypt.vigenere(block, offset, block, offset, length, inverse, 0, true);
+		}
+	}
+
+	//-----------------------Caesar-------------------------
+
+	/**
+	 * Caesar encoding of the block, spaces are encoded
+	 */
+
+	final class Caesar implements BlockCipher {
+
+		private final byte key;
+
+		public Caesar(byte key) {
+
+			this.key = key;
+		}
+
+		@Override
+		public void encrypt(byte[] block, int offset, int length) {
+
+			Encrypt.caesar(block, offset, block, offset, length, key, true);
+		}
+
+		@Override
+		public void decrypt(byte[] block, int offset, int length) {
+
+			Encrypt.caesar(block, offset, block, offset, length, (byte) (-key), true);
+		}
+	}
+
+	//-----------------------XOR-------------------------
+
+	/**
+	 * XOR of the block with a single byte, spaces are encoded
+	 */
+
+	final class Xor implements BlockCipher {
+
+		private final byte key;
+
+		public Xor(byte key) {
+
+			this.key = key;
+		}
+
+		@Override
+		public void encrypt(byte[] block, int offset, int length) {
+
+			Encrypt.xor(block, offset, block, offset, length, key, true);
+		}
+
+		@Override
+		public void decrypt(byte[] block, int offset, int length) {
+
+			encrypt(block, offset, length);
+		}
+	}
+
+	//-----------------------Substitution-------------------------
+
+	/**
+	 * Substitution of each byte by another one given by a table of 256 entries, which must be a permutation
+	 */
+
+	final class Substitution implements BlockCipher {
+
+		private final byte[] table;
+		private final byte[] inverse;
+
+		/**
+		 * @param table the byte replacing each byte b, at index b + 128
+		 * @throws IllegalArgumentException if the table is not a permutation of the 256 bytes
+		 */
+
+		public Substitution(byte[] table) {
+
+			assert(table != null);
+
+			if (table.length != Decrypt.ALPHABETSIZE) {
+
+				throw new IllegalArgumentException("The substitution table must have " + Decrypt.ALPHABETSIZE + " entries");
+			}
+
+			this.table = table.clone();
+			this.inverse = new byte[Decrypt.ALPHABETSIZE];
+
+			boolean[] used = new boolean[Decrypt.ALPHABETSIZE];
+
+			for (int i = 0; i < table.length; i++) {
+
+				int image = table[i] + 128;
+
+				if (used[image]) {
+
+					throw new IllegalArgumentException("The substitution table is not a permutation");
+				}
+
+				used[image] = true;
+				inverse[image] = (byte) (i - 128);
+			}
+		}
+
+		@Override
+		public void encrypt(byte[] block, int offset, int length) {
+
+			for (int i = offset; i < offset + length; i++) {
+
+				block[i] = table[block[i] + 128];
+			}
+		}
+
+		@Override
+		public void decrypt(byte[] block, int offset, int length) {
+
+			for (int i = offset; i < offset + length; i++) {
+
+				block[i] = inverse[block[i] + 128];
+			}
+		}
+	}
+}
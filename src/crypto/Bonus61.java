@@ -81,35 +81,7 @@ public class Bonus61 {
 		assert(plainText != null);
 		assert(iv != null);
 		
-		byte[] cipherText = new byte[plainText.length];
-				
-		// On copie "iv" dans une variable locale "pad" afin de garder le pad initial.
-		
-		byte[] pad = new byte[iv.length];
-		
-		for (int i = 0; i < iv.length; i++) {
-			pad[i] = iv[i];
-		}
-				
-		for (int i = 0, cipherIndex = 0; i < plainText.length; i++) {
-			
-			int currentPadIndex = (i % pad.length);
-			
-			pad[currentPadIndex] = (byte) (plainText[i] ^ pad[currentPadIndex]);
-						
-			if (currentPadIndex == pad.length - 1 || i == plainText.length - 1) {
-				
-				pad = Encrypt.vigenere(pad, key, true);
-				
-				for (int j = 0; j < pad.length && cipherIndex < cipherText.length; j++) {
-					
-					cipherText[cipherIndex] = pad[j];
-					cipherIndex++;
-				}
-			}
-		}
-		
-		return cipherText;
+		return Encrypt.modifiedCBC(plainText, iv, key);
 	}
 	
 	/**
@@ -125,66 +97,13 @@ public class Bonus61 {
 		assert(cipher != null);
 		assert(iv != null);
 		
-		byte[] plainText = new byte[cipher.length];		
-		byte[] cipherBloc = new byte[iv.length];
-		byte[] pad = new byte[iv.length];
-		
-		for (int i = 0; i < iv.length; i++) {
-			pad[i] = iv[i];
-		}
-		
-		/*
-		 * On va parcourir le tableau cipher en utilisant l'index i.
-		 * D'abord, on copie les éléments de cipher dans un tableau cipherBloc extrait de cipher de la même taille que iv.
-		 * Une fois qu'on copie un bloc complet, on le décrypte avec Vigenere et on met le résultat dans decryptedCipherBloc.
-		 * On peut alors faire le décryptage d'un extrait de cipher grâce à un XOR entre pad et decryptedCipherBloc.
-		 * Le résultat de chaque XOR est sauvegardé dans le plainText et est aussi copié dans le pad pour utilisation dans l'extrait suivant.
-		 * plainTextIndex correspond aux éléments du plainText; on ne l'incrémente donc que quand on réalise les XOR.
-		 */
-		
-		for (int i = 0, plainTextIndex = 0; i < cipher.length; i++) {
-			
-			int currentPadIndex = (i % pad.length);
-			
-			cipherBloc[currentPadIndex] = cipher[i];
-			
-			if (currentPadIndex == pad.length - 1 || i == plainText.length - 1) {
-				
-				byte[] decryptedCipherBloc = vigenereDecryptWithKey(cipherBloc, key);
-				
-				for (int j = 0; j < pad.length && plainTextIndex < cipher.length; j++) {
-					
-					plainText[plainTextIndex] = (byte) (decryptedCipherBloc[j] ^ pad[j]);
-					
-					pad[j] = cipher[plainTextIndex];
-					
-					plainTextIndex++;
-				}
-			}
-		}
-		
-		return plainText;
-	}
-	
-	/**
-	 * Method that decrypts a cipher text encrypted with Vigenere. This method need the encryption key.
-	 * @param cipher is the cipher text to decrypt.
-	 * @param encryptionKey is the encryption key used to encrypt with Vigenere.
-	 * @return the plain text.
-	 */
-	
-	private static byte[] vigenereDecryptWithKey (byte[] cipher, byte[] encryptionKey) {
-				
-		byte[] decryptionKey = new byte[encryptionKey.length];
+		long start = Metrics.start();
 		
-		// On inverse la clé de cryptage pour avoir celle de décryptage
+		// Le moteur CBC de BlockCBC ne crée aucun tableau par bloc
 		
-		for (int i = 0; i < encryptionKey.length; i++) {
-			
-			decryptionKey[i] = (byte) (-encryptionKey[i]);
-		}
+		byte[] plainText = BlockCBC.decrypt(cipher, iv, new BlockCipher.Vigenere(key));
 		
-		byte[] plainText = Encrypt.vigenere(cipher, decryptionKey, true);
+		Metrics.decrypt(Encrypt.MODIFIEDCBC, cipher.length, start);
 		
 		return plainText;
 	}
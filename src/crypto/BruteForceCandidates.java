@@ -0,0 +1,144 @@
+package crypto;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Lazy replacement for Decrypt.caesarBruteForce and Decrypt.xorBruteForce.
+ * Instead of a 256 x n matrix, the candidates are produced one at a time, and each of them only decodes
+ * the cipher text when asked to. The score of all the 256 keys comes from a single histogram of the cipher text:
+ * decoding with a key only renames the bytes, so the frequencies of the decoded text are a permutation of it.
+ */
+
+public class BruteForceCandidates {
+
+	/**
+	 * Method that lists the Caesar candidates, in the same order as Decrypt.caesarBruteForce
+	 * @param cipher the byte array representing the encoded text
+	 * @return the 256 candidates, produced lazily
+	 */
+
+	public static Iterable<Candidate> caesar(byte[] cipher) {
+
+		return candidates(Encrypt.CAESAR, cipher);
+	}
+
+	/**
+	 * Method that lists the XOR candidates, in the same order as Decrypt.xorBruteForce
+	 * @param cipher the byte array representing the encoded text
+	 * @return the 256 candidates, produced lazily
+	 */
+
+	public static Iterable<Candidate> xor(byte[] cipher) {
+
+		return candidates(Encrypt.XOR, cipher);
+	}
+
+	/**
+	 * Method that finds the k most likely Caesar candidates
+	 * @param cipher the byte array representing the encoded text
+	 * @param k the number of candidates to keep
+	 * @return the best candidates, by decreasing score
+	 */
+
+	public static List<Candidate> topCaesar(byte[] cipher, int k) {
+
+		return top(caesar(cipher), k);
+	}
+
+	/**
+	 * Method that finds the k most likely XOR candidates
+	 * @param cipher the byte array representing the encoded text
+	 * @param k the number of candidates to keep
+	 * @return the best candidates, by decreasing score
+	 */
+
+	public static List<Candidate> topXor(byte[] cipher, int k) {
+
+		return top(xor(cipher), k);
+	}
+
+	/**
+	 * Method that computes the score of a decoding key from the frequencies of the cipher text
+	 * @param type Encrypt.CAESAR or Encrypt.XOR
+	 * @param frequencies the frequencies of the cipher text, as computed by Decrypt.computeFrequencies
+	 * @param key the decoding key
+	 * @return the dot product between the frequencies of the decoded letters and the English frequencies
+	 */
+
+	public static double score(int type, float[] frequencies, byte key) {
+
+		double score = 0;
+
+		for (int j = 0; j < Decrypt.ENGLISHFREQUENCIES.length; j++) {
+
+			// Le byte crypté qui devient la lettre 'a' + j une fois décodé avec la clé
+
+			byte letter = (byte) ('a' + j);
+			byte cipherByte = (type == Encrypt.XOR) ? (byte) (letter ^ key) : (byte) (letter - key);
+
+			score += Decrypt.ENGLISHFREQUENCIES[j] * frequencies[cipherByte + 128];
+		}
+
+		return score;
+	}
+
+	private static Iterable<Candidate> candidates(int type, byte[] cipher) {
+
+		assert(cipher != null);
+
+		float[] frequencies = Decrypt.computeFrequencies(cipher);
+
+		return () -> new Iterator<Candidate>() {
+
+			private int i = 0;
+
+			@Override
+			public boolean hasNext() {
+
+				return i < Decrypt.ALPHABETSIZE;
+			}
+
+			@Override
+			public Candidate next() {
+
+				if (!hasNext()) {
+
+					throw new NoSuchElementException();
+				}
+
+				byte key = (byte) (i - 128);
+				i++;
+
+				return new Candidate(type, key, score(type, frequencies, key), cipher);
+			}
+		};
+	}
+
+	private static List<Candidate> top(Iterable<Candidate> candidates, int k) {
+
+		assert(k >= 0);
+
+		// On garde les k meilleurs dans un tas dont la racine est le moins bon d'entre eux
+
+		PriorityQueue<Candidate> best = new PriorityQueue<Candidate>((a, b) -> Double.compare(a.getScore(), b.getScore()));
+
+		for (Candidate candidate : candidates) {
+
+			best.add(candidate);
+
+			if (best.size() > k) {
+
+				best.poll();
+			}
+		}
+
+		List<Candidate> result = new ArrayList<Candidate>(best);
+		result.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+
+		return result;
+	}
+}
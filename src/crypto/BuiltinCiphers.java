@@ -0,0 +1,274 @@
+package crypto;
+
+/**
+ * The CipherFactory of each scheme of Encrypt, registered in META-INF/services/crypto.CipherFactory.
+ * The ciphers keep their own copy of the key, so that the caller can reuse its array.
+ */
+
+public final class BuiltinCiphers {
+
+	private BuiltinCiphers() {}
+
+	//-----------------------Caesar-------------------------
+
+	public static final class Caesar implements CipherFactory {
+
+		@Override
+		public int getType() {
+
+			return Encrypt.CAESAR;
+		}
+
+		@Override
+		public String getName() {
+
+			return "caesar";
+		}
+
+		@Override
+		public Cipher create(byte[] key, boolean spaceEncoding) {
+
+			assert(key != null);
+
+			byte encoding = key[0];
+
+			return new Cipher() {
+
+				@Override
+				public byte[] encrypt(byte[] plainText) {
+
+					return Encrypt.caesar(plainText, encoding, spaceEncoding);
+				}
+
+				@Override
+				public byte[] decrypt(byte[] cipherText) {
+
+					return Encrypt.caesar(cipherText, (byte) (-encoding), spaceEncoding);
+				}
+			};
+		}
+	}
+
+	//-----------------------Vigenere-------------------------
+
+	public static final class Vigenere implements CipherFactory {
+
+		@Override
+		public int getType() {
+
+			return Encrypt.VIGENERE;
+		}
+
+		@Override
+		public String getName() {
+
+			return "vigenere";
+		}
+
+		@Override
+		public Cipher create(byte[] key, boolean spaceEncoding) {
+
+			assert(key != null);
+
+			byte[] keyword = key.clone();
+			byte[] inverse = new byte[keyword.length];
+
+			for (int i = 0; i < keyword.length; i++) {
+
+				inverse[i] = (byte) (-keyword[i]);
+			}
+
+			return new Cipher() {
+
+				@Override
+				public byte[] encrypt(byte[] plainText) {
+
+					return Encrypt.vigenere(plainText, keyword, spaceEncoding);
+				}
+
+				@Override
+				public byte[] decrypt(byte[] cipherText) {
+
+					return Encrypt.vigenere(cipherText, inverse, spaceEncoding);
+				}
+			};
+		}
+	}
+
+	//-----------------------XOR-------------------------
+
+	public static final class Xor implements CipherFactory {
+
+		@Override
+		public int getType() {
+
+			return Encrypt.XOR;
+		}
+
+		@Override
+		public String getName() {
+
+			return "xor";
+		}
+
+		@Override
+		public Cipher create(byte[] key, boolean spaceEncoding) {
+
+			assert(key != null);
+
+			byte encoding = key[0];
+
+			return new Cipher() {
+
+				@Override
+				public byte[] encrypt(byte[] plainText) {
+
+					return Encrypt.xor(plainText, encoding, spaceEncoding);
+				}
+
+				@Override
+				public byte[] decrypt(byte[] cipherText) {
+
+					return Encrypt.xor(cipherText, encoding, spaceEncoding);
+				}
+			};
+		}
+	}
+
+	//-----------------------One Time Pad-------------------------
+
+	public static final class OneTimePad implements CipherFactory {
+
+		@Override
+		public int getType() {
+
+			return Encrypt.ONETIME;
+		}
+
+		@Override
+		public String getName() {
+
+			return "onetimepad";
+		}
+
+		@Override
+		public Cipher create(byte[] key, boolean spaceEncoding) {
+
+			assert(key != null);
+
+			byte[] pad = key.clone();
+
+			return new Cipher() {
+
+				@Override
+				public byte[] encrypt(byte[] plainText) {
+
+					return Encrypt.oneTimePad(plainText, pad);
+				}
+
+				@Override
+				public byte[] decrypt(byte[] cipherText) {
+
+					return Encrypt.oneTimePad(cipherText, pad);
+				}
+			};
+		}
+	}
+
+	//-----------------------Basic CBC-------------------------
+
+	public static final class Cbc implements CipherFactory {
+
+		@Override
+		public int getType() {
+
+			return Encrypt.CBC;
+		}
+
+		@Override
+		public String getName() {
+
+			return "cbc";
+		}
+
+		@Override
+		public Cipher create(byte[] key, boolean spaceEncoding) {
+
+			assert(key != null);
+
+			byte[] iv = key.clone();
+
+			return new Cipher() {
+
+				@Override
+				public byte[] encrypt(byte[] plainText) {
+
+					return Encrypt.cbc(plainText, iv);
+				}
+
+				@Override
+				public byte[] decrypt(byte[] cipherText) {
+
+					return Decrypt.decryptCBC(cipherText, iv);
+				}
+			};
+		}
+	}
+
+	//-----------------------CBC over Vigenere-------------------------
+
+	public static final class ModifiedCbc implements CipherFactory {
+
+		@Override
+		public int getType() {
+
+			return Encrypt.MODIFIEDCBC;
+		}
+
+		@Override
+		public String getName() {
+
+			return "modifiedcbc";
+		}
+
+		/**
+		 * The key is used both as the iv and as the Vigenere keyword, as in Encrypt.encrypt
+		 */
+
+		@Override
+		public Cipher create(byte[] key, boolean spaceEncoding) {
+
+			assert(key != null);
+
+			byte[] iv = key.clone();
+			BlockCipher blockCipher = new BlockCipher.Vigenere(key);
+
+			return new Cipher() {
+
+				@Override
+				public byte[] encrypt(byte[] plainText) {
+
+					long start = Metrics.start();
+
+					byte[] cipherText = BlockCBC.encrypt(plainText, iv, blockCipher);
+
+					Metrics.encrypt(Encrypt.MODIFIEDCBC, plainText.length, start);
+
+					return cipherText;
+				}
+
+				@Override
+				public byte[] decrypt(byte[] cipherText) {
+
+					long start = Metrics.start();
+
+					byte[] plainText = BlockCBC.decrypt(cipherText, iv, blockCipher);
+
+					Metrics.decrypt(Encrypt.MODIFIEDCBC, cipherText.length, start);
+
+					return plainText;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package crypto;
+
+/**
+ * One possible decoding of a cipher text by a brute force attack : a key and a score.
+ * The clear text is only computed when it is asked for, so that holding many candidates
+ * costs no more than holding the cipher text once.
+ */
+
+public class Candidate {
+
+	private final int type;
+	private final byte key;
+	private final double score;
+	private final byte[] cipher;
+
+	Candidate(int type, byte key, double score, byte[] cipher) {
+
+		this.type = type;
+		this.key = key;
+		this.score = score;
+		this.cipher = cipher;
+	}
+
+	/**
+	 * @return the decoding key of this candidate
+	 */
+
+	public byte getKey() {
+
+		return key;
+	}
+
+	/**
+	 * @return the dot product between the letter frequencies of the decoded text and the English frequencies,
+	 * the higher the more likely the candidate is English
+	 */
+
+	public double getScore() {
+
+		return score;
+	}
+
+	/**
+	 * Decodes the cipher text with the key of this candidate. A new array is computed at each call.
+	 * @return the decoded text
+	 */
+
+	public byte[] plainText() {
+
+		return Decrypt.decode(type, cipher, new byte[] {key});
+	}
+
+	@Override
+	public String toString() {
+
+		return Helper.bytesToString(plainText());
+	}
+}
@@ -0,0 +1,24 @@
+package crypto;
+
+/**
+ * A scheme together with a prepared key : everything that only depends on the key (copies, inverse keys,
+ * block ciphers) is computed once when the Cipher is created by its CipherFactory, and reused by every call.
+ * A Cipher is immutable and can be shared between threads.
+ */
+
+public interface Cipher {
+
+	/**
+	 * @param plainText the byte array representing the message to encode
+	 * @return an encoded byte array
+	 */
+
+	byte[] encrypt(byte[] plainText);
+
+	/**
+	 * @param cipherText the byte array representing a message encoded by encrypt
+	 * @return the clear text
+	 */
+
+	byte[] decrypt(byte[] cipherText);
+}
@@ -0,0 +1,44 @@
+package crypto;
+
+/**
+ * Service provider interface for the encryption schemes. The providers are listed in
+ * META-INF/services/crypto.CipherFactory and found by CipherRegistry through the ServiceLoader.
+ * Encrypt.encrypt and Decrypt.breakCipher go through the registry. StreamCipher, FileCipher and the parallel
+ * methods only know the built-in schemes, since they need the state of a scheme between two chunks.
+ */
+
+public interface CipherFactory {
+
+	/**
+	 * @return the type of the scheme, as the constants of Encrypt : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad, 4 = CBC, ...
+	 */
+
+	int getType();
+
+	/**
+	 * @return the name of the scheme, in lower case
+	 */
+
+	String getName();
+
+	/**
+	 * Prepares a key for the scheme
+	 * @param key the key (Caesar and XOR only use the first byte), the pad for the one time pad or the iv for CBC
+	 * @param spaceEncoding if false, then spaces are not encoded (ignored by the schemes which always encode them)
+	 * @return the cipher using this key
+	 */
+
+	Cipher create(byte[] key, boolean spaceEncoding);
+
+	/**
+	 * Breaks a cipher text of the scheme without its key, for Decrypt.breakCipher. Caesar, Vigenere and XOR
+	 * are always broken by Decrypt itself.
+	 * @param cipherText the encoded message
+	 * @return the decoded message, or null if the scheme cannot be broken (the default)
+	 */
+
+	default String breakCipher(String cipherText) {
+
+		return null;
+	}
+}
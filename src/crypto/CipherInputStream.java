@@ -0,0 +1,104 @@
+package crypto;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream that encodes (or decodes) the bytes read from another stream with a StreamCipher.
+ * The bytes are transformed directly in the buffer given by the caller, so the memory used
+ * does not depend on the size of the stream.
+ */
+
+public class CipherInputStream extends FilterInputStream {
+
+	private final StreamCipher cipher;
+
+	/**
+	 * @param in the stream to read the message from
+	 * @param cipher the stream cipher applied to every byte read
+	 */
+
+	public CipherInputStream(InputStream in, StreamCipher cipher) {
+
+		super(in);
+
+		assert(cipher != null);
+		this.cipher = cipher;
+	}
+
+	@Override
+	public int read() throws IOException {
+
+		int value = in.read();
+
+		if (value == -1) {
+
+			return -1;
+		}
+
+		byte[] single = {(byte) value};
+		cipher.update(single, 0, 1);
+
+		return single[0] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+
+		int count = in.read(buffer, offset, length);
+
+		if (count > 0) {
+
+			cipher.update(buffer, offset, count);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Skipping would desynchronise the cipher state, so skipped bytes are read and transformed.
+	 */
+
+	@Override
+	public long skip(long n) throws IOException {
+
+		if (n <= 0) {
+
+			return 0;
+		}
+
+		byte[] buffer = new byte[(int) Math.min(n, 8192)];
+		long skipped = 0;
+
+		while (skipped < n) {
+
+			int count = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+
+			if (count == -1) {
+
+				break;
+			}
+
+			skipped += count;
+		}
+
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+
+		return false;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+
+		throw new IOException("mark/reset not supported");
+	}
+}
@@ -0,0 +1,56 @@
+package crypto;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * OutputStream that encodes (or decodes) the bytes with a StreamCipher before writing them to another stream.
+ * The caller's array is never modified: the bytes are copied chunk by chunk in a buffer of fixed size,
+ * so the memory used does not depend on the size of the stream.
+ */
+
+public class CipherOutputStream extends FilterOutputStream {
+
+	public static final int BUFFERSIZE = 8192;
+
+	private final StreamCipher cipher;
+	private final byte[] buffer = new byte[BUFFERSIZE];
+
+	/**
+	 * @param out the stream to write the transformed message to
+	 * @param cipher the stream cipher applied to every byte written
+	 */
+
+	public CipherOutputStream(OutputStream out, StreamCipher cipher) {
+
+		super(out);
+
+		assert(cipher != null);
+		this.cipher = cipher;
+	}
+
+	@Override
+	public void write(int value) throws IOException {
+
+		buffer[0] = (byte) value;
+		cipher.update(buffer, 0, 1);
+		out.write(buffer, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] data, int offset, int length) throws IOException {
+
+		while (length > 0) {
+
+			int chunk = Math.min(length, BUFFERSIZE);
+
+			System.arraycopy(data, offset, buffer, 0, chunk);
+			cipher.update(buffer, 0, chunk);
+			out.write(buffer, 0, chunk);
+
+			offset += chunk;
+			length -= chunk;
+		}
+	}
+}
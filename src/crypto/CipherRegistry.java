@@ -0,0 +1,83 @@
+package crypto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Registry of the CipherFactory providers, by type and by name.
+ * The providers are loaded once with the ServiceLoader, the first time the registry is used. The built-in schemes
+ * are added afterwards for the types that no provider gave, so that they are available even when
+ * META-INF/services is not on the class path. Providers can also be registered by hand.
+ */
+
+public class CipherRegistry {
+
+	private static final Map<Integer, CipherFactory> BYTYPE = new HashMap<Integer, CipherFactory>();
+	private static final Map<String, CipherFactory> BYNAME = new HashMap<String, CipherFactory>();
+
+	static {
+
+		for (CipherFactory factory : ServiceLoader.load(CipherFactory.class, CipherRegistry.class.getClassLoader())) {
+
+			register(factory);
+		}
+
+		CipherFactory[] builtins = {new BuiltinCiphers.Caesar(), new BuiltinCiphers.Vigenere(), new BuiltinCiphers.Xor(),
+				new BuiltinCiphers.OneTimePad(), new BuiltinCiphers.Cbc(), new BuiltinCiphers.ModifiedCbc()};
+
+		for (CipherFactory factory : builtins) {
+
+			if (forType(factory.getType()) == null) {
+
+				register(factory);
+			}
+		}
+	}
+
+	/**
+	 * Registers a provider, replacing the one with the same type or name if there is one
+	 * @param factory the provider
+	 */
+
+	public static synchronized void register(CipherFactory factory) {
+
+		assert(factory != null);
+
+		BYTYPE.put(factory.getType(), factory);
+		BYNAME.put(factory.getName(), factory);
+	}
+
+	/**
+	 * @param type the type of the scheme, as the constants of Encrypt
+	 * @return the provider of the scheme, or null if there is none
+	 */
+
+	public static synchronized CipherFactory forType(int type) {
+
+		return BYTYPE.get(type);
+	}
+
+	/**
+	 * @param name the name of the scheme
+	 * @return the provider of the scheme, or null if there is none
+	 */
+
+	public static synchronized CipherFactory forName(String name) {
+
+		assert(name != null);
+
+		return BYNAME.get(name);
+	}
+
+	/**
+	 * @return all the registered providers
+	 */
+
+	public static synchronized List<CipherFactory> factories() {
+
+		return new ArrayList<CipherFactory>(BYTYPE.values());
+	}
+}
@@ -0,0 +1,273 @@
+package crypto;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size bounded, thread safe cache of cracking results, used by Decrypt.breakCipher when it is enabled
+ * with Decrypt.setCache. The entries are addressed by the content of the cipher text : the key of an entry
+ * is the scheme and the SHA-256 digest of the cipher text, which is not kept. A collision of the digest
+ * cannot be found, so a hit always gives the result of the same cipher text.
+ * When the cache holds more than maxEntries entries or more than maxBytes bytes of results, the least
+ * recently used (LRU) or the oldest (FIFO) entries are evicted.
+ */
+
+public class CrackCache {
+
+	public enum Eviction { LRU, FIFO }
+
+	/**
+	 * A cached result : the recovered decoding key (null when the scheme has no single key) and the clear text
+	 */
+
+	public static class Entry {
+
+		private final byte[] key;
+		private final String plainText;
+
+		Entry(byte[] key, String plainText) {
+
+			this.key = key;
+			this.plainText = plainText;
+		}
+
+		public byte[] getKey() {
+
+			return (key == null) ? null : key.clone();
+		}
+
+		public String getPlainText() {
+
+			return plainText;
+		}
+
+		long weight() {
+
+			return plainText.length() + ((key == null) ? 0 : key.length);
+		}
+	}
+
+	/**
+	 * Address of a cipher text in the cache, computed once by the caller which looks for it and then stores it
+	 */
+
+	static final class Address {
+
+		private final int scheme;
+		private final byte[] digest;
+
+		Address(int scheme, byte[] cipher) {
+
+			this.scheme = scheme;
+			this.digest = digest(cipher);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+
+			if (!(other instanceof Address)) {
+				return false;
+			}
+
+			Address address = (Address) other;
+			return scheme == address.scheme && Arrays.equals(digest, address.digest);
+		}
+
+		@Override
+		public int hashCode() {
+
+			// Les bytes du condensé sont déjà uniformes
+
+			return 31 * scheme + (int) (long) XorKernel.LONGS.get(digest, 0);
+		}
+	}
+
+	private final int maxEntries;
+	private final long maxBytes;
+	private final LinkedHashMap<Address, Entry> entries;
+
+	private long bytes;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * @param maxEntries the maximum number of entries
+	 * @param maxBytes the maximum total size of the cached clear texts and keys
+	 * @param eviction the order in which entries are evicted
+	 */
+
+	public CrackCache(int maxEntries, long maxBytes, Eviction eviction) {
+
+		assert(maxEntries > 0);
+		assert(maxBytes > 0);
+		assert(eviction != null);
+
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.entries = new LinkedHashMap<Address, Entry>(16, 0.75f, eviction == Eviction.LRU);
+	}
+
+	/**
+	 * Creates a LRU cache bounded by the number of entries only
+	 * @param maxEntries the maximum number of entries
+	 */
+
+	public CrackCache(int maxEntries) {
+
+		this(maxEntries, Long.MAX_VALUE, Eviction.LRU);
+	}
+
+	/**
+	 * Looks for the result of a previous cracking of the same cipher text with the same scheme
+	 * @param scheme the integer representing the method to break
+	 * @param cipher the cipher text
+	 * @return the cached result, or null if there is none
+	 */
+
+	public Entry get(int scheme, byte[] cipher) {
+
+		assert(cipher != null);
+
+		return get(new Address(scheme, cipher));
+	}
+
+	/**
+	 * Looks for the result at an address, computed once for a get and the put that follows a miss
+	 * @param address the address of the cipher text
+	 * @return the cached result, or null if there is none
+	 */
+
+	Entry get(Address address) {
+
+		assert(address != null);
+
+		// Le condensé est déjà calculé : seule la recherche est sous le verrou
+
+		synchronized (this) {
+
+			Entry entry = entries.get(address);
+
+			if (entry == null) {
+				misses++;
+			} else {
+				hits++;
+			}
+
+			return entry;
+		}
+	}
+
+	/**
+	 * Stores the result of a cracking, evicting older entries if the cache is full
+	 * @param scheme the integer representing the method to break
+	 * @param cipher the cipher text
+	 * @param key the recovered decoding key, or null
+	 * @param plainText the clear text
+	 */
+
+	public void put(int scheme, byte[] cipher, byte[] key, String plainText) {
+
+		assert(cipher != null);
+
+		put(new Address(scheme, cipher), key, plainText);
+	}
+
+	/**
+	 * Stores the result of a cracking at an address, evicting older entries if the cache is full
+	 * @param address the address of the cipher text
+	 * @param key the recovered decoding key, or null
+	 * @param plainText the clear text
+	 */
+
+	void put(Address address, byte[] key, String plainText) {
+
+		assert(address != null);
+		assert(plainText != null);
+
+		Entry entry = new Entry((key == null) ? null : key.clone(), plainText);
+
+		// Un résultat plus grand que tout le cache n'est pas gardé
+
+		if (entry.weight() > maxBytes) {
+			return;
+		}
+
+		synchronized (this) {
+
+			Entry previous = entries.put(address, entry);
+
+			if (previous != null) {
+				bytes -= previous.weight();
+			}
+
+			bytes += entry.weight();
+
+			Iterator<Map.Entry<Address, Entry>> eldest = entries.entrySet().iterator();
+
+			while (entries.size() > maxEntries || bytes > maxBytes) {
+
+				bytes -= eldest.next().getValue().weight();
+				eldest.remove();
+				evictions++;
+			}
+		}
+	}
+
+	public synchronized void clear() {
+
+		entries.clear();
+		bytes = 0;
+	}
+
+	public synchronized int size() {
+
+		return entries.size();
+	}
+
+	/**
+	 * @return the total size of the cached clear texts and keys
+	 */
+
+	public synchronized long getBytes() {
+
+		return bytes;
+	}
+
+	public synchronized long getHits() {
+
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+
+		return evictions;
+	}
+
+	/**
+	 * @return the SHA-256 digest of the array
+	 */
+
+	private static byte[] digest(byte[] array) {
+
+		try {
+
+			return MessageDigest.getInstance("SHA-256").digest(array);
+
+		} catch (NoSuchAlgorithmException e) {
+
+			// Toutes les implémentations de Java doivent fournir SHA-256
+
+			throw new IllegalStateException(e);
+		}
+	}
+}
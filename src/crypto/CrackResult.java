@@ -0,0 +1,57 @@
+package crypto;
+
+/**
+ * Result of the cracking of one message of a batch, see BatchCracker
+ */
+
+public class CrackResult {
+
+	private final long index;
+	private final String plainText;
+	private final long nanos;
+	private final Throwable error;
+
+	CrackResult(long index, String plainText, long nanos, Throwable error) {
+
+		this.index = index;
+		this.plainText = plainText;
+		this.nanos = nanos;
+		this.error = error;
+	}
+
+	/**
+	 * @return the position of the cipher text in the batch
+	 */
+
+	public long getIndex() {
+
+		return index;
+	}
+
+	/**
+	 * @return the result of Decrypt.breakCipher, or null if it failed
+	 */
+
+	public String getPlainText() {
+
+		return plainText;
+	}
+
+	/**
+	 * @return the time spent cracking this message, in nanoseconds
+	 */
+
+	public long getNanos() {
+
+		return nanos;
+	}
+
+	/**
+	 * @return the exception thrown while cracking this message, or null if it succeeded
+	 */
+
+	public Throwable getError() {
+
+		return error;
+	}
+}
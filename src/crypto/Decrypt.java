@@ -16,18 +16,66 @@ public class Decrypt {
 	public static final int ALPHABETSIZE = Byte.MAX_VALUE - Byte.MIN_VALUE + 1 ; //256
 	public static final int APOSITION = 97 + ALPHABETSIZE/2; 
 	
+	// Au-delà de cette taille, les coincidences sont calculées par FFT plutôt que par comparaison directe
+	public static final int FFTTHRESHOLD = 1024;
+	
+	// Nombre de candidats XOR donnés par breakCipher
+	public static final int XORCANDIDATES = 5;
+	
+	// Plus grand décalage testé par défaut pour la longueur de clé Vigenere : clés d'au plus MAXSHIFT / 2 bytes
+	public static final int MAXSHIFT = 64;
+	
 	//source : https://en.wikipedia.org/wiki/Letter_frequency
 	public static final double[] ENGLISHFREQUENCIES = {0.08497,0.01492,0.02202,0.04253,0.11162,0.02228,0.02015,0.06094,0.07546,0.00153,0.01292,0.04025,0.02406,0.06749,0.07507,0.01929,0.00095,0.07587,0.06327,0.09356,0.02758,0.00978,0.0256,0.0015,0.01994,0.00077};
 	
+	// Cache des résultats de breakCipher, désactivé si null
+	private static volatile CrackCache cache = null;
+	
+	/**
+	 * Enables (or disables with null) the cache consulted by breakCipher
+	 * @param crackCache the cache to use
+	 */
+	
+	public static void setCache(CrackCache crackCache) {
+		
+		cache = crackCache;
+	}
+	
 	/**
 	 * Method to break a string encoded with different types of cryptosystems
+	 * If a cache was given to setCache, a cipher text already broken with the same method is not computed again.
+	 * For XOR, the XORCANDIDATES most likely decodings are given, one per line, the most likely first.
+	 * For Vigenere, the keys of at most MAXSHIFT / 2 bytes are found, as with vigenereWithFrequencies.
+	 * The other types are broken by their CipherFactory in CipherRegistry, if it can.
 	 * @param type the integer representing the method to break : 0 = Caesar, 1 = Vigenere, 2 = XOR
-	 * @return the decoded string or the original encoded message if type is not in the list above.
+	 * @return the decoded string or the original encoded message if type cannot be broken.
 	 */
 	
 	public static String breakCipher(String cipher, int type) {
 		
 		byte[] cipherBytes = stringToBytes(cipher);
+		CrackCache crackCache = cache;
+		long start = Metrics.start();
+		
+		// L'adresse est calculée une seule fois pour la recherche et pour l'ajout
+		
+		CrackCache.Address address = null;
+		
+		if (crackCache != null) {
+			
+			address = new CrackCache.Address(type, cipherBytes);
+			CrackCache.Entry entry = crackCache.get(address);
+			
+			if (entry != null) {
+				
+				Metrics.crack(type, cipherBytes.length, start);
+				
+				return entry.getPlainText();
+			}
+		}
+		
+		byte[] key = null;
+		String plainText;
 		
 		switch (type) {
 		
@@ -36,21 +84,105 @@ public class Decrypt {
 				// On décrypte avec l'inverse de la clé de cryptage
 				
 				byte decodingKey = (byte) caesarWithFrequencies(cipherBytes);
-				return bytesToString(Encrypt.caesar(cipherBytes, decodingKey));
+				key = new byte[] {decodingKey};
+				plainText = bytesToString(decode(Encrypt.CAESAR, cipherBytes, key));
+				break;
 			
 			case Encrypt.VIGENERE :
 				
-				return bytesToString(vigenereWithFrequencies(cipherBytes));
+				key = vigenereFindDecodingKey(cipherBytes, MAXSHIFT);
+				plainText = bytesToString(decode(Encrypt.VIGENERE, cipherBytes, key));
+				break;
 			
 			case Encrypt.XOR :
 			
-				byte[][] bruteForceResult = xorBruteForce(cipherBytes);
-				return arrayToString(bruteForceResult);
+				// Les clés sont classées avec un seul histogramme, et seuls les meilleurs candidats sont décodés
+				
+				List<Candidate> candidates = BruteForceCandidates.topXor(cipherBytes, XORCANDIDATES);
+				byte[][] bestResults = new byte[candidates.size()][];
+				
+				for (int i = 0; i < bestResults.length; i++) {
+					
+					bestResults[i] = candidates.get(i).plainText();
+				}
+				
+				key = new byte[] {candidates.get(0).getKey()};
+				plainText = arrayToString(bestResults);
+				break;
 			
-			default : 
+			default :
 				
-				return cipher;
-		}		
+				// Schéma ajouté par CipherRegistry : il est cassé par son fournisseur, sans clé connue
+				
+				CipherFactory factory = CipherRegistry.forType(type);
+				plainText = (factory == null) ? null : factory.breakCipher(cipher);
+				
+				if (plainText == null) {
+					
+					return cipher;
+				}
+				
+				break;
+		}
+		
+		if (crackCache != null) {
+			
+			crackCache.put(address, key, plainText);
+		}
+		
+		Metrics.crack(type, cipherBytes.length, start);
+		
+		return plainText;
+	}
+	
+	/**
+	 * Decodes a cipher text with Caesar, XOR or Vigenere, spaces not encoded, through the offset methods of Encrypt.
+	 * Those are not counted by Metrics : the decodings tried while cracking belong to the crack, not to the encryptions.
+	 * @param type Encrypt.CAESAR, Encrypt.XOR or Encrypt.VIGENERE
+	 * @param cipher the cipher text
+	 * @param key the decoding key, of one byte for Caesar and XOR
+	 * @return the decoded text
+	 */
+	
+	static byte[] decode(int type, byte[] cipher, byte[] key) {
+		
+		assert(cipher != null);
+		assert(key != null);
+		
+		byte[] plainText = new byte[cipher.length];
+		
+		switch (type) {
+		
+			case Encrypt.CAESAR :
+				
+				Encrypt.caesar(cipher, 0, plainText, 0, cipher.length, key[0], false);
+				break;
+				
+			case Encrypt.XOR :
+				
+				Encrypt.xor(cipher, 0, plainText, 0, cipher.length, key[0], false);
+				break;
+				
+			case Encrypt.VIGENERE :
+				
+				if (key.length > 0) {
+					
+					Encrypt.vigenere(cipher, 0, plainText, 0, cipher.length, key, 0, false);
+					
+				} else {
+					
+					// Sans clé trouvée, comme Encrypt.vigenere : rien n'est décalé
+					
+					System.arraycopy(cipher, 0, plainText, 0, cipher.length);
+				}
+				break;
+				
+			default :
+				
+				throw new IllegalArgumentException("No decoding for the encryption type : " + type);
+		}
+		
+		return plainText;
 	}
 	
 	/**
@@ -62,15 +194,15 @@ public class Decrypt {
 		
 		assert (bruteForceResult != null);
 		
-		String result = "";
+		StringBuilder result = new StringBuilder();
 		
 		for (int i = 0; i < bruteForceResult.length; i++) {
 			
-			result += bytesToString(bruteForceResult[i]);
-			result += System.lineSeparator();
+			result.append(bytesToString(bruteForceResult[i]));
+			result.append(System.lineSeparator());
 		}
 		
-		return result;
+		return result.toString();
 	}
 
 	//-----------------------Caesar-------------------------
@@ -91,7 +223,7 @@ public class Decrypt {
 		for (int i = 0; i < ALPHABETSIZE; i++) {
 			
 			byte currentDecryptKey = (byte) (i - 128);
-			keysAndMessages[i] = Encrypt.caesar(cipher, currentDecryptKey);
+			keysAndMessages[i] = decode(Encrypt.CAESAR, cipher, new byte[] {currentDecryptKey});
 		}
 
 		return keysAndMessages;
@@ -122,13 +254,38 @@ public class Decrypt {
 		
 		assert(cipherText != null);
 		
+		// Seul le texte entier est compté : les colonnes de Vigenere font partie de la recherche de la clé
+		
+		long start = Metrics.start();
+		
+		float[] frequencies = computeFrequencies(cipherText, 0, cipherText.length, 1);
+		
+		Metrics.FREQUENCIES.record(cipherText.length, start);
+		
+		return frequencies;
+	}
+	
+	/**
+	 * Method that computes the frequencies of letters among the bytes start, start + stride, start + 2 * stride... of an array
+	 * @param cipherText the byte array 
+	 * @param start the index of the first byte to count
+	 * @param end the index after the last byte that can be counted
+	 * @param stride the distance between two counted bytes
+	 * @return the character frequencies as an array of float
+	 */
+	
+	public static float[] computeFrequencies(byte[] cipherText, int start, int end, int stride) {
+		
+		assert(cipherText != null);
+		assert(stride > 0);
+		
 		float[] frenquencies = new float[ALPHABETSIZE];
 				
 		// On ignore les espaces
 		
 		int cipherLengthWithoutSpaces = 0;
 		
-		for (int i = 0; i < cipherText.length; i++) {
+		for (int i = start; i < end; i += stride) {
 			
 			if (cipherText[i] != (byte) Encrypt.SPACE) {
 				
@@ -208,31 +365,107 @@ public class Decrypt {
 		for (int i = 0; i < ALPHABETSIZE; i++) {
 			
 			byte currentDecryptKey = (byte) (i - 128);
-			keysAndMessages[i] = Encrypt.xor(cipher, currentDecryptKey);
+			keysAndMessages[i] = decode(Encrypt.XOR, cipher, new byte[] {currentDecryptKey});
 		}
 
 		return keysAndMessages;
 	}
 	
+	/**
+	 * Method that finds the key of a XOR encoding by comparing frequencies, like caesarWithFrequencies
+	 * @param cipherText the byte array representing the encoded text
+	 * @return the key (the same for encoding and decoding)
+	 */
+	
+	public static byte xorWithFrequencies(byte[] cipherText) {
+		
+		float[] frequencies = computeFrequencies(cipherText);
+		
+		byte key = xorFindKey(frequencies);
+		
+		return key;
+	}
+	
+	/**
+	 * Method that finds the key of a XOR encoding from an array of character frequencies.
+	 * Each of the 256 keys is scored by BruteForceCandidates.score, without decoding the text.
+	 * @param charFrequencies the array of character frequencies
+	 * @return the key
+	 */
+	
+	public static byte xorFindKey(float[] charFrequencies) {
+		
+		assert (charFrequencies != null);
+		
+		double scoreMax = 0;
+		byte bestKey = 0;
+		
+		for (int i = 0; i < ALPHABETSIZE; i++) {
+			
+			byte key = (byte) (i - 128);
+			double score = BruteForceCandidates.score(Encrypt.XOR, charFrequencies, key);
+			
+			if (scoreMax < score) {
+				
+				scoreMax = score;
+				bestKey = key;
+			}
+		}
+		
+		return bestKey;
+	}
+	
 	//-----------------------Vigenere-------------------------
 	// Algorithm : see  https://www.youtube.com/watch?v=LaWp_Kq0cKs	
 	
 	/**
 	 * Method to decode a byte array encoded following the Vigenere pattern, but in a clever way, 
-	 * saving up on large amounts of computations
+	 * saving up on large amounts of computations. The key length is searched among the shifts 1 to MAXSHIFT,
+	 * so keys of at most MAXSHIFT / 2 bytes are found : testing every shift costs one FFT per distinct symbol,
+	 * seconds on a text of a few MB, and vigenereWithFrequencies(cipher, Integer.MAX_VALUE) is left for longer keys.
 	 * @param cipher the byte array representing the encoded text
 	 * @return the byte encoding of the clear text
 	 */
 	
 	public static byte[] vigenereWithFrequencies(byte[] cipher) {
 				
-		List<Byte> cipherVigenereNoSpace = Decrypt.removeSpaces(cipher);
-		int keyVigenereLength = Decrypt.vigenereFindKeyLength(cipherVigenereNoSpace);
-		byte[] vigenereKeys = Decrypt.vigenereFindKey(cipherVigenereNoSpace, keyVigenereLength);
+		return vigenereWithFrequencies(cipher, MAXSHIFT);
+	}
+	
+	/**
+	 * Same as vigenereWithFrequencies, but the key length is searched among the shifts 1 to maxShift only,
+	 * which makes the search linear in the size of the cipher text
+	 * @param cipher the byte array representing the encoded text
+	 * @param maxShift the largest shift tested to find the key length
+	 * @return the byte encoding of the clear text
+	 */
+	
+	public static byte[] vigenereWithFrequencies(byte[] cipher, int maxShift) {
 		
-		byte[] plainText = Encrypt.vigenere(cipher, vigenereKeys);;
+		byte[] vigenereKeys = vigenereFindDecodingKey(cipher, maxShift);
 		
-		return plainText;
+		return decode(Encrypt.VIGENERE, cipher, vigenereKeys);
+	}
+	
+	/**
+	 * Method that finds the inverse of the key of a Vigenere cipher text, the first steps of vigenereWithFrequencies
+	 * @param cipher the byte array representing the encoded text
+	 * @param maxShift the largest shift tested to find the key length
+	 * @return the inverse key to decode the Vigenere cipher text
+	 */
+	
+	public static byte[] vigenereFindDecodingKey(byte[] cipher, int maxShift) {
+		
+		assert (cipher != null);
+		
+		// On enlève les espaces dans une copie, sans passer par une liste de Byte
+		
+		byte[] cipherVigenereNoSpace = cipher.clone();
+		int length = Decrypt.removeSpaces(cipherVigenereNoSpace, cipherVigenereNoSpace.length);
+		
+		int keyVigenereLength = Decrypt.vigenereFindKeyLength(cipherVigenereNoSpace, length, maxShift);
+		
+		return Decrypt.vigenereFindKey(cipherVigenereNoSpace, length, keyVigenereLength);
 	}
 	
 	/**
@@ -245,39 +478,118 @@ public class Decrypt {
 		
 		assert (cipher != null);
 		
-		byte[] cipherTable = new byte[cipher.size()];
-			
-		for (int i = 0; i < cipher.size(); i++) {
+		byte[] cipherTable = toArray(cipher);
+		
+		return vigenereFindKeyLength(cipherTable, cipherTable.length, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Method that computes the key length for a Vigenere cipher text, looking only at the shifts 1 to maxShift.
+	 * The key length must be at most maxShift / 2 so that the coincidences show at least two local maxima.
+	 * @param cipher the byte array representing the encoded text without space
+	 * @param maxShift the largest shift to test
+	 * @return the length of the key
+	 */
+	
+	public static int vigenereFindKeyLength(byte[] cipher, int maxShift) {
+		
+		assert (cipher != null);
+		
+		return vigenereFindKeyLength(cipher, cipher.length, maxShift);
+	}
+	
+	/**
+	 * Method that computes the key length for the beginning of an array holding a Vigenere cipher text without space.
+	 * If maxShift covers all the shifts, every shift is counted and the local maxima are searched in the first half,
+	 * otherwise only the shifts 1 to maxShift are counted and all of them are used.
+	 * @param cipher the byte array containing the encoded text without space
+	 * @param length the number of bytes of the text
+	 * @param maxShift the largest shift to test
+	 * @return the length of the key
+	 */
+	
+	public static int vigenereFindKeyLength(byte[] cipher, int length, int maxShift) {
+		
+		assert (cipher != null);
+		assert (length <= cipher.length);
+		
+		if (length < 2) {
 			
-			cipherTable[i] = cipher.get(i);
+			return 0;
 		}
 		
-		int[] coincidences = getCoincidences(cipherTable);
+		long start = Metrics.start();
 		
-		ArrayList<Integer> localMaxima = getLocalMaxIndices(coincidences);
+		int keyLength;
 		
-		int keyLength = calculateKeyLength(localMaxima);
+		if (maxShift >= length - 1) {
+			
+			int[] coincidences = getCoincidences(cipher, length);
+			
+			keyLength = calculateKeyLength(getLocalMaxIndices(coincidences));
+			
+		} else {
+			
+			long coincidencesStart = Metrics.start();
+			
+			int[] coincidences = Autocorrelation.coincidences(cipher, length, maxShift);
+			
+			Metrics.COINCIDENCES.record(length, coincidencesStart);
+			
+			keyLength = vigenereFindKeyLength(coincidences);
+		}
+		
+		Metrics.KEYLENGTH.record(length, start);
 				
 		return keyLength;
 	}
 	
+	/**
+	 * Method that computes the key length from the coincidences of the first shifts only, as counted by
+	 * Autocorrelation.coincidences(cipher, length, maxShift) or by IncrementalVigenereCracker
+	 * @param coincidences the number of coincidences for the shifts 1 to coincidences.length
+	 * @return the length of the key, 0 if it could not be found
+	 */
+	
+	static int vigenereFindKeyLength(int[] coincidences) {
+		
+		assert (coincidences != null);
+		
+		// Toutes les valeurs sont utiles ici : la fin bruitée du tableau complet n'est pas calculée
+		
+		return calculateKeyLength(getLocalMaxIndices(coincidences, coincidences.length));
+	}
+	
 	/**
 	 * Method that counts the number of coincidences in the cipher text for each shift.
-	 * @param cipher the byte array representing the encoded text without space.
+	 * Long texts are handled by Autocorrelation, which computes all the shifts at once in O(n log n).
+	 * @param cipher the byte array containing the encoded text without space.
+	 * @param length the number of bytes of the text.
 	 * @return a table of the number of coincidences for each shift.
 	 */
 	
-	private static int[] getCoincidences (byte[] cipher) {
+	private static int[] getCoincidences (byte[] cipher, int length) {
 		
 		assert(cipher != null);
 		
-		// cipher.length - 1 : car on ne test pas la première coincidence entre j et j (on aurait une coincidence de 100%)
+		long start = Metrics.start();
+		
+		if (length >= FFTTHRESHOLD) {
+			
+			int[] coincidences = Autocorrelation.coincidences(cipher, length);
+			
+			Metrics.COINCIDENCES.record(length, start);
+			
+			return coincidences;
+		}
+		
+		// length - 1 : car on ne test pas la première coincidence entre j et j (on aurait une coincidence de 100%)
 		
-		int[] coincidences = new int[cipher.length - 1];
+		int[] coincidences = new int[length - 1];
 				
-		for (int iter = 1; iter < cipher.length; iter++) {
+		for (int iter = 1; iter < length; iter++) {
 						
-			for (int j = 0; (j + iter) < cipher.length; j++) {
+			for (int j = 0; (j + iter) < length; j++) {
 				
 				if (cipher[j] == cipher[j + iter]) {
 					
@@ -286,6 +598,8 @@ public class Decrypt {
 			}			
 		}
 		
+		Metrics.COINCIDENCES.record(length, start);
+		
 		return coincidences;
 	}
 	
@@ -299,9 +613,30 @@ public class Decrypt {
 		
 		assert (coincidences != null);
 		
+		int cipherHalfLength = (int) Math.ceil(coincidences.length / 2.0);
+		
+		return getLocalMaxIndices(coincidences, cipherHalfLength);
+	}
+	
+	/**
+	 * Method that calculates the local maxima among the first values of the coincidences array.
+	 * @param coincidences the int array representing the number of coincidences for each shift.
+	 * @param cipherHalfLength the number of values of the array in which local maxima are searched.
+	 * @return an array list containing the local maxima of the coincidences array.
+	 */
+	
+	private static ArrayList<Integer> getLocalMaxIndices (int[] coincidences, int cipherHalfLength) {
+		
+		assert (coincidences != null);
+		
 		ArrayList<Integer> localMaxIndices = new ArrayList<Integer>();
 		
-		int cipherHalfLength = (int) Math.ceil(coincidences.length / 2.0);
+		if (coincidences.length == 0) {
+			
+			return localMaxIndices;
+		}
+		
+		long start = Metrics.start();
 		
 		int max = coincidences[0];
 		
@@ -330,6 +665,8 @@ public class Decrypt {
 			}
 		}
 		
+		Metrics.LOCALMAXIMA.record(coincidences.length, start);
+		
 		return localMaxIndices;
 	}
 	
@@ -402,6 +739,32 @@ public class Decrypt {
 		return list;
 	}
 	
+	/**
+	 * Removes the space character in place : the bytes that are not spaces are moved to the beginning of the array
+	 * @param array the array to clean
+	 * @param length the number of bytes of the array to clean
+	 * @return the number of bytes left at the beginning of the array
+	 */
+	
+	public static int removeSpaces(byte[] array, int length) {
+		
+		assert (array != null);
+		assert (length <= array.length);
+		
+		int kept = 0;
+		
+		for (int i = 0; i < length; i++) {
+			
+			if (array[i] != Encrypt.SPACE) {
+				
+				array[kept] = array[i];
+				kept++;
+			}
+		}
+		
+		return kept;
+	}
+	
 	/**
 	 * Takes the cipher without space, and the key length, and uses the dot product with the English language frequencies 
 	 * to compute the shifting for each letter of the key
@@ -414,32 +777,140 @@ public class Decrypt {
 		
 		assert (cipher != null);
 		
+		byte[] cipherTable = toArray(cipher);
+		
+		return vigenereFindKey(cipherTable, cipherTable.length, keyLength);
+	}
+	
+	/**
+	 * Same as vigenereFindKey for a List, on the beginning of an array.
+	 * The frequencies of each column of the key are computed directly by striding over the array.
+	 * Long texts are cut in one range per thread of the pool, each task filling its own int histograms of all the columns,
+	 * and the columns are then merged and solved in parallel. A key length of 0 gives an empty key.
+	 * @param cipher the byte array containing the encoded text without space
+	 * @param length the number of bytes of the text
+	 * @param keyLength the length of the key we want to find
+	 * @return the inverse key to decode the Vigenere cipher text
+	 */
+	
+	public static byte[] vigenereFindKey(byte[] cipher, int length, int keyLength) {
+		
+		assert (cipher != null);
+		assert (length <= cipher.length);
+		assert (keyLength >= 0);
+		
 		byte[] keys = new byte[keyLength];
 		
+		// Aucune longueur de clé trouvée (texte trop court) : il n'y a aucune colonne à compter
+		
+		if (keyLength == 0) {
+			
+			return keys;
+		}
+		
+		long start = Metrics.start();
+		
 		/* On décrypte chaque caractère crypté avec le même caractère. Il y a donc autant de passages sur le text que de caractères dans la clé,
 		 * mais on saute à chaque fois les caractères non cryptés avec le caractère en question.
 		 */
 		
-		for (int i = 0; i < keyLength; i++) {
+		if (ParallelCipher.chunkCount(length) < 2) {
+			
+			for (int i = 0; i < keyLength; i++) {
+				
+				keys[i] = caesarFindKey(computeFrequencies(cipher, i, length, keyLength));			
+			}
 			
-			ArrayList<Byte> cipherVigenerePart = new ArrayList<Byte>();
+			Metrics.KEYSEARCH.record(length, start);
 			
-			for (int j = 0; (i + (j * keyLength)) < cipher.size(); j++) {
+			return keys;
+		}
+		
+		// Un tableau par thread et non par chunk : la mémoire ne grandit pas avec la longueur du texte
+		
+		int workers = Math.min(ParallelCipher.chunkCount(length), ParallelCipher.parallelism());
+		int rangeLength = (int) (((long) length + workers - 1) / workers);
+		int[][] histograms = new int[workers][];
+		
+		ParallelCipher.forEachIndex(workers, worker -> {
+			
+			int offset = worker * rangeLength;
+			histograms[worker] = columnHistograms(cipher, offset, Math.max(0, Math.min(rangeLength, length - offset)), keyLength);
+		});
+		
+		// Fusion sans verrou : chaque tâche a rempli son propre tableau, et chaque colonne est fusionnée par une seule tâche
+		
+		ParallelCipher.forEachIndex(keyLength, column -> {
+			
+			float[] frequencies = new float[ALPHABETSIZE];
+			int total = 0;
+			
+			for (int[] histogram : histograms) {
 				
-				cipherVigenerePart.add(cipher.get(i + (j * keyLength)));
+				for (int symbol = 0; symbol < ALPHABETSIZE; symbol++) {
+					
+					frequencies[symbol] += histogram[column * ALPHABETSIZE + symbol];
+					total += histogram[column * ALPHABETSIZE + symbol];
+				}
 			}
-														
-			byte[] cipherVigenerePartArray = new byte[cipherVigenerePart.size()];
 			
-			for (int k = 0; k < cipherVigenerePart.size(); k++) {
+			if (total != 0) {
+				
+				for (int symbol = 0; symbol < ALPHABETSIZE; symbol++) {
+					
+					frequencies[symbol] = frequencies[symbol] / total;
+				}
+			}
+			
+			keys[column] = caesarFindKey(frequencies);
+		});
+		
+		Metrics.KEYSEARCH.record(length, start);
+		
+		return keys;
+	}
+	
+	/**
+	 * Counts the bytes of a part of the text in the histogram of their column, ignoring the spaces
+	 * @param cipher the byte array containing the encoded text
+	 * @param offset the index of the first byte to count
+	 * @param length the number of bytes to count
+	 * @param keyLength the number of columns
+	 * @return the histograms of the columns one after the other : the byte b of the column i is counted at i * ALPHABETSIZE + b + 128
+	 */
 	
-				cipherVigenerePartArray[k] = cipherVigenerePart.get(k);
+	private static int[] columnHistograms(byte[] cipher, int offset, int length, int keyLength) {
+		
+		int[] histograms = new int[keyLength * ALPHABETSIZE];
+		int column = offset % keyLength;
+		
+		for (int i = offset; i < offset + length; i++) {
+			
+			if (cipher[i] != Encrypt.SPACE) {
+				
+				histograms[column * ALPHABETSIZE + cipher[i] + 128]++;
 			}
 			
-			keys[i] = Decrypt.caesarWithFrequencies(cipherVigenerePartArray);			
+			column = (column + 1 == keyLength) ? 0 : column + 1;
 		}
 		
-		return keys;
+		return histograms;
+	}
+	
+	/**
+	 * Copies a List of bytes into an array
+	 */
+	
+	private static byte[] toArray(List<Byte> list) {
+		
+		byte[] array = new byte[list.size()];
+		
+		for (int i = 0; i < array.length; i++) {
+			
+			array[i] = list.get(i);
+		}
+		
+		return array;
 	}
 	
 	
@@ -447,6 +918,7 @@ public class Decrypt {
 	
 	/**
 	 * Method used to decode a String encoded following the CBC pattern
+	 * Large cipher texts are decoded in parallel by ParallelCipher.decryptCBC
 	 * @param cipher the byte array representing the encoded text
 	 * @param iv the pad of size BLOCKSIZE we use to start the chain encoding
 	 * @return the clear text
@@ -457,6 +929,13 @@ public class Decrypt {
 		assert(cipher != null);
 		assert(iv != null);
 		
+		if (ParallelCipher.chunkCount(cipher.length) > 1) {
+			
+			return ParallelCipher.decryptCBC(cipher, iv);
+		}
+		
+		long start = Metrics.start();
+		
 		byte[] plainText = new byte[cipher.length];
 		
 		// On copie "iv" dans une variable locale "pad" afin de garder le pad initial.
@@ -467,15 +946,68 @@ public class Decrypt {
 			pad[i] = iv[i];
 		}
 		
-		for (int i = 0; i < cipher.length; i++) {
+		decryptCBC(cipher, 0, plainText, 0, cipher.length, pad, 0);
+		
+		Metrics.decrypt(Encrypt.CBC, cipher.length, start);
+		
+		return plainText;
+	}
+	
+	/**
+	 * Method used to decode a part of a byte array encoded following the CBC pattern, writing the result in a given array
+	 * src and dst can be the same array (with the same offset) to decode in place
+	 * The pad is modified: after the call it contains the last decoded cipher block, so that consecutive calls chain together.
+	 * @param src the byte array containing the encoded bytes
+	 * @param srcOff the index of the first byte to decode in src
+	 * @param dst the byte array receiving the decoded bytes
+	 * @param dstOff the index in dst of the first decoded byte
+	 * @param len the number of bytes to decode
+	 * @param pad the current pad, initially a copy of the iv
+	 * @param padIndex the index in the pad used for the first decoded byte (the number of bytes already decoded modulo the pad length)
+	 */
+	
+	public static void decryptCBC(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] pad, int padIndex) {
+		
+		assert(src != null);
+		assert(dst != null);
+		assert(pad != null);
+		assert(padIndex >= 0 && padIndex < pad.length);
+		
+		int blockSize = pad.length;
+		
+		if (src == dst || len <= blockSize) {
 			
-			int currentPadIndex = (i % pad.length);
+			for (int i = 0; i < len; i++) {
+				
+				// On garde le byte crypté avant de l'écraser, dans le cas où src et dst sont le même tableau
+				
+				byte cipherByte = src[srcOff + i];
+				
+				dst[dstOff + i] = (byte) (cipherByte ^ pad[padIndex]);
+				pad[padIndex] = cipherByte;
+				
+				padIndex = (padIndex + 1) % blockSize;
+			}
 			
-			plainText[i] = (byte) (cipher[i] ^ pad[currentPadIndex]);
+			return;
+		}
+		
+		/* Chaque byte clair ne dépend que du byte crypté et de celui un bloc plus tôt : plainText[i] = cipher[i] ^ cipher[i - blockSize].
+		 * On décode donc le premier bloc avec le pad, puis tout le reste d'un seul XOR entre le texte crypté et lui-même décalé d'un bloc.
+		 */
+		
+		for (int i = 0; i < blockSize; i++) {
 			
-			pad[currentPadIndex] = cipher[i];
+			dst[dstOff + i] = (byte) (src[srcOff + i] ^ pad[(padIndex + i) % blockSize]);
 		}
 		
-		return plainText;
+		XorKernel.xor(src, srcOff + blockSize, src, srcOff, dst, dstOff + blockSize, len - blockSize);
+		
+		// Le nouveau pad est le dernier bloc crypté
+		
+		for (int i = len - blockSize; i < len; i++) {
+			
+			pad[(padIndex + i) % blockSize] = src[srcOff + i];
+		}
 	}
 }
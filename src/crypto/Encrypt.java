@@ -1,6 +1,7 @@
 package crypto;
 
-import java.util.Random;
+import java.nio.ByteBuffer;
+
 import static crypto.Helper.*;
 
 public class Encrypt {
@@ -10,18 +11,22 @@ public class Encrypt {
 	public static final int XOR = 2;
 	public static final int ONETIME = 3;
 	public static final int CBC = 4; 
+	public static final int MODIFIEDCBC = 5;
 	
 	public static final byte SPACE = 32;
 	
-	final static Random rand = new Random();
+	// Dernière clé préparée par encrypt(message, key, type) : le plus souvent, la même clé sert pour plusieurs messages
+	private static volatile PreparedKey lastPrepared = null;
 	
 	//-----------------------General-------------------------
 	
 	/**
 	 * General method to encode a message using a key, you can choose the method you want to use to encode.
+	 * The key prepared by the last call is kept, so that it is not prepared again for the next message with the same key.
 	 * @param message the message to encode already cleaned
 	 * @param key the key used to encode
-	 * @param type the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad, 4 = CBC
+	 * @param type the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad, 4 = CBC,
+	 * 5 = CBC over Vigenere (the key is used both as the iv and as the Vigenere keyword)
 	 * 
 	 * @return an encoded String
 	 * if the method is called with an unknown type of algorithm, it returns the original message
@@ -29,19 +34,78 @@ public class Encrypt {
 	
 	public static String encrypt(String message, String key, int type) {
 		
-		byte[] messageBytes = stringToBytes(message);
-		byte[] keyBytes = stringToBytes(key);
+		assert(key != null);
+		
+		CipherFactory factory = CipherRegistry.forType(type);
+		
+		if (factory == null) {
+			
+			return message;
+		}
+		
+		// Le fournisseur fait partie de la clé du cache : un fournisseur enregistré après ne reçoit pas une clé préparée par l'ancien
+		
+		PreparedKey prepared = lastPrepared;
+		
+		if (prepared == null || prepared.factory != factory || !prepared.key.equals(key)) {
+			
+			prepared = new PreparedKey(factory, key, factory.create(stringToBytes(key), false));
+			lastPrepared = prepared;
+		}
+		
+		return encrypt(message, prepared.cipher);
+	}
+	
+	/**
+	 * Method to prepare a key once, to encode several messages with it (see CipherRegistry for the schemes available)
+	 * @param key the key used to encode
+	 * @param type the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad, 4 = CBC,
+	 * 5 = CBC over Vigenere
+	 * @return the prepared key, spaces are not encoded, or null if the type is unknown
+	 */
+	
+	public static Cipher prepare(String key, int type) {
 		
-		switch (type) {
+		CipherFactory factory = CipherRegistry.forType(type);
 		
-			case CAESAR : 	return bytesToString(caesar(messageBytes, keyBytes[0]));
-			case VIGENERE :	return bytesToString(vigenere(messageBytes, keyBytes));
-			case XOR :		return bytesToString(xor(messageBytes, keyBytes[0]));		
-			case ONETIME :	return bytesToString(oneTimePad(messageBytes, keyBytes));
-			case CBC :		return bytesToString(cbc(messageBytes, keyBytes));
+		if (factory == null) {
 			
-			default :		return message;
-		}		
+			return null;
+		}
+		
+		return factory.create(stringToBytes(key), false);
+	}
+	
+	/**
+	 * Method to encode a message with a prepared key
+	 * @param message the message to encode already cleaned
+	 * @param cipher the prepared key
+	 * @return an encoded String
+	 */
+	
+	public static String encrypt(String message, Cipher cipher) {
+		
+		assert(cipher != null);
+		
+		return bytesToString(cipher.encrypt(stringToBytes(message)));
+	}
+	
+	/**
+	 * A key prepared by a provider, immutable so that it can be shared between threads
+	 */
+	
+	private static final class PreparedKey {
+		
+		private final CipherFactory factory;
+		private final String key;
+		private final Cipher cipher;
+		
+		PreparedKey(CipherFactory factory, String key, Cipher cipher) {
+			
+			this.factory = factory;
+			this.key = key;
+			this.cipher = cipher;
+		}
 	}
 	
 	//-----------------------Caesar-------------------------
@@ -59,21 +123,47 @@ public class Encrypt {
 		
 		assert(plainText != null);
 	
+		long start = Metrics.start();
+		
 		byte[] cipherText = new byte[plainText.length];
 		
-		for (int i = 0; i < plainText.length; i++) {
+		caesar(plainText, 0, cipherText, 0, plainText.length, key, spaceEncoding);
+		
+		Metrics.encrypt(CAESAR, plainText.length, start);
+						
+		return cipherText;
+	}
+	
+	/**
+	 * Method to encode a part of a byte array using a single character key, writing the result in a given array
+	 * src and dst can be the same array (with the same offset) to encode in place
+	 * @param src the byte array containing the bytes to encode
+	 * @param srcOff the index of the first byte to encode in src
+	 * @param dst the byte array receiving the encoded bytes
+	 * @param dstOff the index in dst of the first encoded byte
+	 * @param len the number of bytes to encode
+	 * @param key the byte corresponding to the char we use to shift
+	 * @param spaceEncoding if false, then spaces are not encoded
+	 */
+	
+	public static void caesar(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte key, boolean spaceEncoding) {
+		
+		assert(src != null);
+		assert(dst != null);
+		
+		for (int i = 0; i < len; i++) {
+			
+			byte current = src[srcOff + i];
 			
-			if (plainText[i] != SPACE || spaceEncoding) {
+			if (current != SPACE || spaceEncoding) {
 				
-				cipherText[i] = (byte) ((plainText[i] + key) % Decrypt.ALPHABETSIZE);				
+				dst[dstOff + i] = (byte) ((current + key) % Decrypt.ALPHABETSIZE);				
 				
 			} else {
 				
-				cipherText[i] = (byte) SPACE;
+				dst[dstOff + i] = SPACE;
 			}						
 		}
-						
-		return cipherText;
 	}
 	
 	/**
@@ -104,23 +194,37 @@ public class Encrypt {
 		
 		assert(plainText != null);
 		
+		long start = Metrics.start();
+		
 		byte[] cipherText = new byte[plainText.length];
 		
-		for (int i = 0; i < plainText.length; i++) {
-						
-			if (plainText[i] != SPACE || spaceEncoding) {
-				
-				cipherText[i] = (byte)(plainText[i] ^ key);
-				
-			} else {
-				
-				cipherText[i] = (byte) SPACE;
-			}						
-		}
+		xor(plainText, 0, cipherText, 0, plainText.length, key, spaceEncoding);
+		
+		Metrics.encrypt(XOR, plainText.length, start);
 		
 		return cipherText;
 	}
 	
+	/**
+	 * Method to encode a part of a byte array using a XOR with a single byte long key, writing the result in a given array
+	 * src and dst can be the same array (with the same offset) to encode in place
+	 * @param src the byte array containing the bytes to encode
+	 * @param srcOff the index of the first byte to encode in src
+	 * @param dst the byte array receiving the encoded bytes
+	 * @param dstOff the index in dst of the first encoded byte
+	 * @param len the number of bytes to encode
+	 * @param key the byte we will use to XOR
+	 * @param spaceEncoding if false, then spaces are not encoded
+	 */
+	
+	public static void xor(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte key, boolean spaceEncoding) {
+		
+		assert(src != null);
+		assert(dst != null);
+		
+		XorKernel.xor(src, srcOff, dst, dstOff, len, key, spaceEncoding);
+	}
+	
 	/**
 	 * Method to encode a byte array using a XOR with a single byte long key
 	 * spaces are not encoded
@@ -150,24 +254,55 @@ public class Encrypt {
 		assert(plainText != null);
 		assert(keyword != null);
 		
+		long start = Metrics.start();
+		
 		byte[] cipherText = new byte[plainText.length];
 	
-		int keywordIndex = 0;
+		vigenere(plainText, 0, cipherText, 0, plainText.length, keyword, 0, spaceEncoding);
 		
-		for (int i = 0; i < plainText.length; i++) {
+		Metrics.encrypt(VIGENERE, plainText.length, start);
+				
+		return cipherText;
+	}
+	
+	/**
+	 * Method to encode a part of a byte array using a byte array keyword, writing the result in a given array
+	 * src and dst can be the same array (with the same offset) to encode in place
+	 * @param src the byte array containing the bytes to encode
+	 * @param srcOff the index of the first byte to encode in src
+	 * @param dst the byte array receiving the encoded bytes
+	 * @param dstOff the index in dst of the first encoded byte
+	 * @param len the number of bytes to encode
+	 * @param keyword the byte array representing the key used to perform the shift, which can be empty
+	 * only if no byte is encoded (nothing to encode, or only spaces not encoded)
+	 * @param keywordIndex the index in the keyword of the byte used to shift the first encoded byte, 0 for an empty keyword
+	 * @param spaceEncoding if false, then spaces are not encoded
+	 * @return the keyword index to use for the byte following the encoded part
+	 */
+	
+	public static int vigenere(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] keyword, int keywordIndex, boolean spaceEncoding) {
+		
+		assert(src != null);
+		assert(dst != null);
+		assert(keyword != null);
+		assert(keywordIndex >= 0 && (keywordIndex < keyword.length || keywordIndex == 0));
+		
+		for (int i = 0; i < len; i++) {
+			
+			byte current = src[srcOff + i];
 							
-			if (plainText[i] != (byte) SPACE || spaceEncoding) {							
+			if (current != SPACE || spaceEncoding) {							
 				
-				cipherText[i] = (byte) ((plainText[i] + keyword[keywordIndex]) % 256);
+				dst[dstOff + i] = (byte) ((current + keyword[keywordIndex]) % 256);
 				keywordIndex = (keywordIndex + 1) % keyword.length;
 				
 			} else {
 				
-				cipherText[i] = (byte) SPACE;
+				dst[dstOff + i] = SPACE;
 			}						
 		}
-				
-		return cipherText;
+		
+		return keywordIndex;
 	}
 	
 	/**
@@ -201,16 +336,62 @@ public class Encrypt {
 		assert(pad != null);
 		assert(pad.length >= plainText.length);
 		
+		long start = Metrics.start();
+		
 		byte[] cipherText = new byte[plainText.length];
 		
-		for (int i = 0; i < plainText.length; i++) {
-						
-			cipherText[i] = (byte)(plainText[i] ^ pad[i]);									
-		}
+		oneTimePad(plainText, 0, cipherText, 0, plainText.length, pad, 0);
+		
+		Metrics.encrypt(ONETIME, plainText.length, start);
 
 		return cipherText;
 	}
 	
+	/**
+	 * Method to encode a part of a byte array using a one time pad, writing the result in a given array
+	 * src and dst can be the same array (with the same offset) to encode in place
+	 * @param src the byte array containing the bytes to encode
+	 * @param srcOff the index of the first byte to encode in src
+	 * @param dst the byte array receiving the encoded bytes
+	 * @param dstOff the index in dst of the first encoded byte
+	 * @param len the number of bytes to encode
+	 * @param pad the one time pad
+	 * @param padOff the index in the pad of the byte used for the first encoded byte
+	 */
+	
+	public static void oneTimePad(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] pad, int padOff) {
+		
+		assert(src != null);
+		assert(dst != null);
+		assert(pad != null);
+		assert(padOff + len <= pad.length);
+		
+		XorKernel.xor(src, srcOff, pad, padOff, dst, dstOff, len);
+	}
+	
+	/**
+	 * Method to encode a part of a byte array using a one time pad held in a ByteBuffer, typically a memory mapped
+	 * segment given by PadStore, writing the result in a given array. The position of the buffer is not changed.
+	 * src and dst can be the same array (with the same offset) to encode in place
+	 * @param src the byte array containing the bytes to encode
+	 * @param srcOff the index of the first byte to encode in src
+	 * @param dst the byte array receiving the encoded bytes
+	 * @param dstOff the index in dst of the first encoded byte
+	 * @param len the number of bytes to encode
+	 * @param pad the buffer containing the one time pad
+	 * @param padOff the index in the buffer of the pad byte used for the first encoded byte
+	 */
+	
+	public static void oneTimePad(byte[] src, int srcOff, byte[] dst, int dstOff, int len, ByteBuffer pad, int padOff) {
+		
+		assert(src != null);
+		assert(dst != null);
+		assert(pad != null);
+		assert(padOff + len <= pad.limit());
+		
+		XorKernel.xor(src, srcOff, pad, padOff, dst, dstOff, len);
+	}
+	
 	//-------------------------Basic CBC---------------------------
 	
 	/**
@@ -225,6 +406,8 @@ public class Encrypt {
 		assert(plainText != null);
 		assert(iv != null);
 		
+		long start = Metrics.start();
+		
 		byte[] cipherText = new byte[plainText.length];
 				
 		// On copie "iv" dans une variable locale "pad" afin de garder le pad initial.
@@ -235,33 +418,74 @@ public class Encrypt {
 			pad[i] = iv[i];
 		}
 				
-		for (int i = 0; i < plainText.length; i++) {
+		cbc(plainText, 0, cipherText, 0, plainText.length, pad, 0);
+		
+		Metrics.encrypt(CBC, plainText.length, start);
+		
+		return cipherText;
+	}
+	
+	/**
+	 * Method applying the basic CBC to a part of a byte array, writing the result in a given array. Encodes spaces.
+	 * src and dst can be the same array (with the same offset) to encode in place
+	 * The pad is modified: after the call it contains the last encoded block, so that consecutive calls chain together.
+	 * @param src the byte array containing the bytes to encode
+	 * @param srcOff the index of the first byte to encode in src
+	 * @param dst the byte array receiving the encoded bytes
+	 * @param dstOff the index in dst of the first encoded byte
+	 * @param len the number of bytes to encode
+	 * @param pad the current pad, initially a copy of the iv
+	 * @param padIndex the index in the pad used for the first encoded byte (the number of bytes already encoded modulo the pad length)
+	 */
+	
+	public static void cbc(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] pad, int padIndex) {
+		
+		assert(src != null);
+		assert(dst != null);
+		assert(pad != null);
+		assert(padIndex >= 0 && padIndex < pad.length);
+		
+		for (int i = 0; i < len; i++) {
 						
-			int currentPadIndex = (i % pad.length);
+			byte cipherByte = (byte) (src[srcOff + i] ^ pad[padIndex]);
 			
-			cipherText[i] = (byte) (plainText[i] ^ pad[currentPadIndex]);
+			dst[dstOff + i] = cipherByte;
+			pad[padIndex] = cipherByte;
 			
-			pad[currentPadIndex] = cipherText[i];			
+			padIndex = (padIndex + 1) % pad.length;
 		}
+	}
+	
+	//-------------------------CBC over Vigenere---------------------------
+	
+	/**
+	 * Method applying CBC where each block is also encoded with Vigenere, as Bonus61.modifiedCBC. Encodes spaces.
+	 * The keyword starts again at the beginning of each block.
+	 * @param plainText the byte array representing the string to encode
+	 * @param iv the pad we use to start the chain encoding, which gives the size of the blocks
+	 * @param keyword the byte array representing the Vigenere key
+	 * @return an encoded byte array
+	 */
+	
+	public static byte[] modifiedCBC(byte[] plainText, byte[] iv, byte[] keyword) {
+		
+		long start = Metrics.start();
+		
+		byte[] cipherText = BlockCBC.encrypt(plainText, iv, new BlockCipher.Vigenere(keyword));
+		
+		Metrics.encrypt(MODIFIEDCBC, plainText.length, start);
 		
 		return cipherText;
 	}
 	
 	/**
-	 * Generate a random pad/IV of bytes to be used for encoding
+	 * Generate a random pad/IV of bytes to be used for encoding, see PadGenerator (and PadGenerator.SecurePool for secure pads)
 	 * @param size the size of the pad
 	 * @return random bytes in an array
 	 */
 	
 	public static byte[] generatePad(int size) {
 				
-		byte[] pad = new byte[size];
-		
-		for (int i = 0; i < pad.length; i++) {
-									
-			pad[i] = (byte) (rand.nextInt(Decrypt.ALPHABETSIZE));
-		}
-
-		return pad;
+		return PadGenerator.generate(size);
 	}
 }
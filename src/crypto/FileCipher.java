@@ -0,0 +1,95 @@
+package crypto;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Encodes or decodes a file into another file with any Encrypt scheme, without going through a String.
+ * Both files are memory mapped by windows of WINDOWSIZE bytes, and each window is transformed chunk by chunk
+ * with a StreamCipher, so neither the heap used nor the time per byte depend on the size of the file.
+ */
+
+public class FileCipher {
+
+	public static final long WINDOWSIZE = 64L * 1024 * 1024;
+	public static final int CHUNKSIZE = 64 * 1024;
+
+	/**
+	 * Method that encodes a file with one of the Encrypt schemes
+	 * @param source the file to encode
+	 * @param target the file receiving the cipher text, replaced if it exists
+	 * @param type the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad, 4 = CBC
+	 * @param key the key, the pad for the one time pad or the iv for CBC
+	 * @param spaceEncoding if false, then spaces are not encoded
+	 */
+
+	public static void encrypt(Path source, Path target, int type, byte[] key, boolean spaceEncoding) throws IOException {
+
+		process(source, target, StreamCipher.encrypting(type, key, spaceEncoding));
+	}
+
+	/**
+	 * Method that decodes a file encoded with one of the Encrypt schemes
+	 * @param source the file to decode
+	 * @param target the file receiving the clear text, replaced if it exists
+	 * @param type the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad, 4 = CBC
+	 * @param key the key used to encode, the pad for the one time pad or the iv for CBC
+	 * @param spaceEncoding must be the same as the one used to encode
+	 */
+
+	public static void decrypt(Path source, Path target, int type, byte[] key, boolean spaceEncoding) throws IOException {
+
+		process(source, target, StreamCipher.decrypting(type, key, spaceEncoding));
+	}
+
+	/**
+	 * Method that applies a stream cipher to a whole file, writing the result in another file
+	 * @param source the file to read
+	 * @param target the file to write, replaced if it exists
+	 * @param cipher the stream cipher, which must not have been used yet
+	 * @throws IllegalArgumentException if source and target are the same file
+	 */
+
+	public static void process(Path source, Path target, StreamCipher cipher) throws IOException {
+
+		assert(source != null);
+		assert(target != null);
+		assert(cipher != null);
+
+		// Le fichier cible est vidé à l'ouverture : s'il s'agit de la source, elle serait perdue avant d'être lue
+
+		if (Files.exists(target) && Files.isSameFile(source, target)) {
+
+			throw new IllegalArgumentException("The source and the target are the same file : " + source);
+		}
+
+		try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+			 FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					 StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			long size = in.size();
+			byte[] chunk = new byte[(int) Math.min(CHUNKSIZE, Math.max(size, 1))];
+
+			for (long position = 0; position < size; position += WINDOWSIZE) {
+
+				long windowSize = Math.min(WINDOWSIZE, size - position);
+
+				MappedByteBuffer inWindow = in.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+				MappedByteBuffer outWindow = out.map(FileChannel.MapMode.READ_WRITE, position, windowSize);
+
+				while (inWindow.hasRemaining()) {
+
+					int length = Math.min(chunk.length, inWindow.remaining());
+
+					inWindow.get(chunk, 0, length);
+					cipher.update(chunk, 0, length);
+					outWindow.put(chunk, 0, length);
+				}
+			}
+		}
+	}
+}
@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 
 public class Helper {
 	private static final String SEP = File.separator;
@@ -20,9 +21,7 @@ public class Helper {
 	 * @return the string cleaned
 	 */
 	public static String cleanString(String s) {
-		String cleaned = s.toLowerCase();
-		cleaned = cleaned.replaceAll("[:,;.]", " "); 
-		cleaned = cleaned.replaceAll("[^a-z ]", ""); //97-122,32
+		String cleaned = TextNormalizer.normalize(s); // une seule passe, voir TextNormalizer
 
 		assert (cleaned.matches("[a-z ]*"));
 		return cleaned;
@@ -87,7 +86,7 @@ public class Helper {
 	 * @param fileName the name of the file
 	 */
 	public static String readStringFromFile(String fileName) {
-		String string= "";  
+		StringBuilder string = new StringBuilder();  
 		File file = new File(RES_PATH_HEADER + fileName); 
 		  try {
 		  BufferedReader br = new BufferedReader(new FileReader(file)); 
@@ -96,9 +95,9 @@ public class Helper {
 		  boolean checkFirst = false;
 		  while((temp = br.readLine())!= null) {
 			  if(checkFirst) {
-				  string += (" " + temp);
+				  string.append(' ').append(temp);
 			  }else {
-				  string += temp;
+				  string.append(temp);
 				  checkFirst = true;
 			  }
 		  }
@@ -109,9 +108,24 @@ public class Helper {
 			  e.printStackTrace();
 		  }
 		  
-		  return string;
+		  return string.toString();
 		  
 	}
 	
+	/**
+	 * Method to encode or decode a file into another file, byte for byte, with a stream cipher.
+	 * Unlike readStringFromFile, the line breaks are kept and the file is never loaded in memory.
+	 * @param sourceName the name of the file to read
+	 * @param targetName the name of the file to write
+	 * @param cipher the stream cipher to apply
+	 */
+	public static void processFile(String sourceName, String targetName, StreamCipher cipher) {
+		try {
+			FileCipher.process(Path.of(RES_PATH_HEADER + sourceName), Path.of(RES_PATH_HEADER + targetName), cipher);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
 	
 }
@@ -0,0 +1,375 @@
+package crypto;
+
+import java.util.Arrays;
+
+/**
+ * Vigenere cracker fed with the cipher text chunk by chunk, which refines its estimate of the key as the data arrives.
+ * Spaces are skipped as in Decrypt.vigenereFindDecodingKey. For each new byte, the coincidences with the maxShift
+ * previous bytes (kept in a ring buffer) are counted. Every EVALUATIONINTERVAL bytes, the key length is computed from
+ * the coincidences, and the key from the column histograms of this length. Histograms are only kept for the SHORTLIST
+ * key lengths found last : when a new length is found, its histograms are built from the first HISTORYSIZE bytes,
+ * which are kept, and then follow the new bytes. As long as fewer than HISTORYSIZE bytes were received, the estimate
+ * is exactly what Decrypt.vigenereFindDecodingKey(cipher, maxShift) gives on all of them, afterwards the histograms
+ * skip the bytes received between HISTORYSIZE and the shortlisting of the length, which is still a large sample.
+ * The memory used does not depend on the length of the stream, and each byte costs maxShift comparisons and at most
+ * SHORTLIST histogram updates. The estimate is published with a confidence value, and once it has not changed
+ * for stableRounds evaluations in a row with a confidence of at least MINCONFIDENCE, the cracker is stable and ignores
+ * the following chunks. A low confidence usually means a wrong key length, so the cracker then keeps reading.
+ */
+
+public class IncrementalVigenereCracker {
+
+	public static final int EVALUATIONINTERVAL = 4096;
+	public static final float MINCONFIDENCE = 0.3f;
+	public static final int HISTORYSIZE = 1024 * 1024;
+	public static final int SHORTLIST = 4;
+
+	private final int maxShift;
+	private final int stableRounds;
+
+	// Les maxShift derniers bytes, dans un tableau dont la taille est une puissance de 2
+
+	private final byte[] ring;
+	private final int[] coincidences;
+
+	// Les HISTORYSIZE premiers bytes, agrandi au fur et à mesure
+
+	private byte[] history = new byte[EVALUATIONINTERVAL];
+
+	/* Longueurs de clé retenues : columns[t] contient les histogrammes des lengths[t] colonnes l'un après l'autre,
+	 * phases[t] est la colonne du prochain byte. La plus ancienne est remplacée quand une nouvelle est trouvée.
+	 */
+
+	private final int[] lengths = new int[SHORTLIST];
+	private final int[][] columns = new int[SHORTLIST][];
+	private final int[] phases = new int[SHORTLIST];
+	private int shortlisted;
+	private int oldest;
+
+	private long count;
+	private long nextEvaluation = EVALUATIONINTERVAL;
+	private int unchanged;
+
+	private volatile Estimate estimate = new Estimate(0, new byte[0], 0, 0);
+	private volatile boolean stable;
+
+	/**
+	 * Estimate of the key published by the cracker
+	 */
+
+	public static final class Estimate {
+
+		private final int keyLength;
+		private final byte[] key;
+		private final float confidence;
+		private final long bytes;
+
+		private Estimate(int keyLength, byte[] key, float confidence, long bytes) {
+
+			this.keyLength = keyLength;
+			this.key = key;
+			this.confidence = confidence;
+			this.bytes = bytes;
+		}
+
+		/**
+		 * @return the length of the key, 0 if it could not be found yet
+		 */
+
+		public int getKeyLength() {
+
+			return keyLength;
+		}
+
+		/**
+		 * @return the decoding key : encoding the cipher text with it gives the clear text
+		 */
+
+		public byte[] getKey() {
+
+			return key.clone();
+		}
+
+		/**
+		 * @return how much more often the bytes coincide at the multiples of the key length than at the other shifts,
+		 * from 0 (no difference) to 1 (coincidences only at the multiples)
+		 */
+
+		public float getConfidence() {
+
+			return confidence;
+		}
+
+		/**
+		 * @return the number of non space bytes used for this estimate
+		 */
+
+		public long getBytes() {
+
+			return bytes;
+		}
+
+		@Override
+		public String toString() {
+
+			return "key length " + keyLength + ", confidence " + confidence + ", " + bytes + " bytes";
+		}
+	}
+
+	/**
+	 * Creates a cracker
+	 * @param maxShift the largest shift for which coincidences are counted, and the largest key length which can be found
+	 * @param stableRounds the number of evaluations in a row giving the same key after which the cracker stops
+	 */
+
+	public IncrementalVigenereCracker(int maxShift, int stableRounds) {
+
+		assert(maxShift >= 1);
+		assert(stableRounds >= 1);
+
+		this.maxShift = maxShift;
+		this.stableRounds = stableRounds;
+		this.ring = new byte[Integer.highestOneBit(maxShift) << 1];
+		this.coincidences = new int[maxShift];
+	}
+
+	/**
+	 * Creates a cracker for keys of at most 64 bytes, which stops after 8 evaluations giving the same key
+	 */
+
+	public IncrementalVigenereCracker() {
+
+		this(64, 8);
+	}
+
+	/**
+	 * Adds the next chunk of the cipher text
+	 * @param chunk the array containing the chunk
+	 * @param offset the index of the first byte of the chunk
+	 * @param length the number of bytes of the chunk
+	 * @return true if the cracker is stable, in which case the next chunks are not needed
+	 */
+
+	public synchronized boolean update(byte[] chunk, int offset, int length) {
+
+		assert(chunk != null);
+		assert(offset >= 0 && length >= 0 && offset + length <= chunk.length);
+
+		int mask = ring.length - 1;
+
+		for (int i = offset; i < offset + length && !stable; i++) {
+
+			byte current = chunk[i];
+
+			if (current == Encrypt.SPACE) {
+
+				continue;
+			}
+
+			int shifts = (int) Math.min(maxShift, count);
+			int position = (int) count;
+
+			for (int shift = 1; shift <= shifts; shift++) {
+
+				if (ring[(position - shift) & mask] == current) {
+
+					coincidences[shift - 1]++;
+				}
+			}
+
+			ring[position & mask] = current;
+
+			if (count < HISTORYSIZE) {
+
+				if (position == history.length) {
+
+					history = Arrays.copyOf(history, Math.min(HISTORYSIZE, 2 * history.length));
+				}
+
+				history[position] = current;
+			}
+
+			int symbol = current + 128;
+
+			for (int t = 0; t < shortlisted; t++) {
+
+				columns[t][phases[t] * Decrypt.ALPHABETSIZE + symbol]++;
+
+				phases[t] = (phases[t] == lengths[t] - 1) ? 0 : phases[t] + 1;
+			}
+
+			count++;
+
+			if (count == nextEvaluation) {
+
+				nextEvaluation += EVALUATIONINTERVAL;
+				publish();
+			}
+		}
+
+		return stable;
+	}
+
+	/**
+	 * Computes and publishes the estimate for all the bytes received so far, without waiting for the next evaluation
+	 * @return the estimate
+	 */
+
+	public synchronized Estimate evaluate() {
+
+		if (!stable && count != estimate.bytes) {
+
+			publish();
+		}
+
+		return estimate;
+	}
+
+	/**
+	 * @return the last published estimate, which can be read by any thread while another one feeds the cracker
+	 */
+
+	public Estimate getEstimate() {
+
+		return estimate;
+	}
+
+	/**
+	 * @return true if the estimate did not change for stableRounds evaluations in a row, with enough confidence
+	 */
+
+	public boolean isStable() {
+
+		return stable;
+	}
+
+	private void publish() {
+
+		Estimate previous = estimate;
+
+		// Même longueur de clé que Decrypt.vigenereFindKeyLength quand maxShift < longueur du texte - 1
+
+		int[] counted = (count - 1 >= maxShift) ? coincidences : Arrays.copyOf(coincidences, (int) Math.max(0, count - 1));
+		int keyLength = (count < 2) ? 0 : Decrypt.vigenereFindKeyLength(counted);
+
+		byte[] key = new byte[keyLength];
+
+		if (keyLength > 0) {
+
+			int[] histograms = histograms(keyLength);
+			float[] frequencies = new float[Decrypt.ALPHABETSIZE];
+
+			for (int column = 0; column < keyLength; column++) {
+
+				int total = 0;
+
+				for (int symbol = 0; symbol < Decrypt.ALPHABETSIZE; symbol++) {
+
+					total += histograms[column * Decrypt.ALPHABETSIZE + symbol];
+				}
+
+				for (int symbol = 0; symbol < Decrypt.ALPHABETSIZE; symbol++) {
+
+					frequencies[symbol] = (total == 0) ? 0 : (float) histograms[column * Decrypt.ALPHABETSIZE + symbol] / total;
+				}
+
+				key[column] = Decrypt.caesarFindKey(frequencies);
+			}
+		}
+
+		estimate = new Estimate(keyLength, key, confidence(keyLength, counted), count);
+
+		if (keyLength > 0 && Arrays.equals(key, previous.key) && estimate.confidence >= MINCONFIDENCE) {
+
+			unchanged++;
+			stable = unchanged >= stableRounds;
+
+		} else {
+
+			unchanged = 0;
+		}
+	}
+
+	/**
+	 * Gives the column histograms of a key length, built from the kept history if the length is not shortlisted yet
+	 * @param keyLength the length of the key
+	 * @return the histograms of the columns one after the other
+	 */
+
+	private int[] histograms(int keyLength) {
+
+		for (int t = 0; t < shortlisted; t++) {
+
+			if (lengths[t] == keyLength) {
+
+				return columns[t];
+			}
+		}
+
+		int t = (shortlisted < SHORTLIST) ? shortlisted++ : oldest;
+		oldest = (t + 1) % SHORTLIST;
+
+		int[] histograms = new int[keyLength * Decrypt.ALPHABETSIZE];
+		int kept = (int) Math.min(count, HISTORYSIZE);
+		int column = 0;
+
+		for (int i = 0; i < kept; i++) {
+
+			histograms[column * Decrypt.ALPHABETSIZE + history[i] + 128]++;
+
+			column = (column + 1 == keyLength) ? 0 : column + 1;
+		}
+
+		// Les bytes suivants vont dans la colonne de leur position dans le texte
+
+		lengths[t] = keyLength;
+		columns[t] = histograms;
+		phases[t] = (int) (count % keyLength);
+
+		return histograms;
+	}
+
+	/**
+	 * @return 1 - (coincidence rate at the shifts which are not multiples of the key length) / (rate at the multiples)
+	 */
+
+	private float confidence(int keyLength, int[] counted) {
+
+		double multiples = 0;
+		double others = 0;
+		int multiplesCount = 0;
+		int othersCount = 0;
+
+		for (int shift = 1; shift <= counted.length && keyLength > 0; shift++) {
+
+			// Taux de coïncidences : on divise par le nombre de paires comparées pour ce décalage
+
+			double rate = (double) counted[shift - 1] / (count - shift);
+
+			if (shift % keyLength == 0) {
+
+				multiples += rate;
+				multiplesCount++;
+
+			} else {
+
+				others += rate;
+				othersCount++;
+			}
+		}
+
+		if (multiplesCount == 0 || multiples == 0) {
+
+			return 0;
+		}
+
+		if (othersCount == 0) {
+
+			return 1;
+		}
+
+		double ratio = (others / othersCount) / (multiples / multiplesCount);
+
+		return (float) Math.max(0, Math.min(1, 1 - ratio));
+	}
+}
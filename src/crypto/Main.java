@@ -1,5 +1,21 @@
 package crypto;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
 import static crypto.Helper.cleanString;
 import static crypto.Helper.stringToBytes;
 
@@ -16,12 +32,30 @@ public class Main {
 	
 	//---------------------------MAIN---------------------------
 	
-	public static void main(String args[]) {
+	public static void main(String args[]) throws IOException {
 		
+		testNormalizerExamples();
 		testCaesarExamples();
 		testXORExamples();
+		testBruteForceCandidatesExamples();
 		testOneTimePadExamples();
 		testVigenereExamples();
+		testCBCExamples();
+		testCoincidencesExamples();
+		testStreamCipherExamples();
+		testCipherStreamsExamples();
+		testParallelExamples();
+		testBatchCrackerExamples();
+		testCrackCacheExamples();
+		testCTRExamples();
+		testIncrementalCrackerExamples();
+		testSecurePoolExamples();
+		testPadStoreExamples();
+		testFileCipherExamples();
+		testRangeDecryptorExamples();
+		testSamplingCrackerExamples();
+		testMetricsExamples();
+		testCipherRegistryExamples();
 						
 //		solveChallenge();
 						
@@ -180,6 +214,39 @@ public class Main {
 		
 	}
 
+	public static void testNormalizerExamples() {
+		
+		// Le texte nettoyé tient dans 2 bytes : le reste de dst ne doit pas être touché
+		byte[] dst = new byte[] {0, 0, 7};
+		int length = TextNormalizer.normalize(stringToBytes("ab!"), 0, dst, 0, 3);
+		assert length == 2 && MyCompareByteArrays(dst, new byte[] {'a', 'b', 7}): "Test normalizer 1 failed";
+		
+		dst = new byte[2];
+		length = TextNormalizer.normalize(stringToBytes("ab!"), 0, dst, 0, 3);
+		assert length == 2 && MyCompareByteArrays(dst, new byte[] {'a', 'b'}): "Test normalizer 2 failed";
+		
+		// Mêmes résultats que les expressions régulières d'origine sur des textes au hasard
+		Random random = new Random(14);
+		for (int test = 0; test < 1000; test++) {
+			
+			byte[] text = new byte[random.nextInt(64)];
+			for (int i = 0; i < text.length; i++) {
+				text[i] = (byte) ((random.nextInt(4) == 0) ? random.nextInt(256) : " .,:;!aZz?".charAt(random.nextInt(10)));
+			}
+			
+			String expected = new String(text, StandardCharsets.ISO_8859_1).toLowerCase()
+					.replaceAll("[:,;.]", " ").replaceAll("[^a-z ]", "");
+			
+			int dstOff = random.nextInt(4);
+			dst = new byte[dstOff + expected.length() + 1];
+			dst[dst.length - 1] = 7;
+			length = TextNormalizer.normalize(text, 0, dst, dstOff, text.length);
+			
+			assert expected.equals(new String(dst, dstOff, length, StandardCharsets.ISO_8859_1)): "Test normalizer 3 failed";
+			assert dst[dst.length - 1] == 7: "Test normalizer 4 failed";
+		}
+	}
+
 	public static void testCaesarExamples() {
 
 		// Example 1: No shift.
@@ -232,6 +299,76 @@ public class Main {
 		byte[] cipherText = Encrypt.xor(plainText , key);
 		assert MyCompareByteArrays(cipherText, expectedText): "Test XOR 1 failed";
 		
+		// Example 2: Key found by frequency analysis
+		plainText = stringToBytes("the quick brown fox jumps over the lazy dog and then it sleeps in the sun all the afternoon");
+		cipherText = Encrypt.xor(plainText, key);
+		assert Decrypt.xorWithFrequencies(cipherText) == key: "Test XOR 2 failed";
+		
+	}
+	
+	public static void testBruteForceCandidatesExamples() {
+		
+		byte[] plainText = stringToBytes("the quick brown fox jumps over the lazy dog and then it sleeps in the sun all the afternoon");
+		
+		for (int type : new int[] {Encrypt.CAESAR, Encrypt.XOR}) {
+			
+			byte[] cipherText = (type == Encrypt.XOR) ? Encrypt.xor(plainText, (byte) 50) : Encrypt.caesar(plainText, (byte) 50);
+			byte[][] decodings = (type == Encrypt.XOR) ? Decrypt.xorBruteForce(cipherText) : Decrypt.caesarBruteForce(cipherText);
+			Iterable<Candidate> candidates = (type == Encrypt.XOR) ? BruteForceCandidates.xor(cipherText) : BruteForceCandidates.caesar(cipherText);
+			
+			// Les 256 clés dans l'ordre du calcul complet, deux fois de suite
+			for (int pass = 0; pass < 2; pass++) {
+				int i = 0;
+				for (Candidate candidate : candidates) {
+					assert candidate.getKey() == (byte) (i - 128): "Test candidates 1 failed";
+					assert MyCompareByteArrays(candidate.plainText(), decodings[i]): "Test candidates 2 failed";
+					
+					// Score du calcul complet : lettres du texte décodé parmi les bytes décodés
+					int[] counts = new int[26];
+					int total = 0;
+					for (int j = 0; j < cipherText.length; j++) {
+						if (cipherText[j] != Encrypt.SPACE) {
+							total++;
+							if (decodings[i][j] >= 'a' && decodings[i][j] <= 'z') {
+								counts[decodings[i][j] - 'a']++;
+							}
+						}
+					}
+					double expectedScore = 0;
+					for (int j = 0; j < counts.length; j++) {
+						expectedScore += Decrypt.ENGLISHFREQUENCIES[j] * ((float) counts[j] / total);
+					}
+					assert Math.abs(candidate.getScore() - expectedScore) < 1e-9: "Test candidates 3 failed";
+					i++;
+				}
+				assert i == Decrypt.ALPHABETSIZE: "Test candidates 4 failed";
+			}
+		}
+		
+		// Un seul byte répété : 26 clés donnent une lettre, les 230 autres sont à égalité avec un score nul
+		byte[][] cipherTexts = {Encrypt.xor(plainText, (byte) 50), new byte[] {65, 65, 65, 65}};
+		for (byte[] cipherText : cipherTexts) {
+			double[] scores = new double[Decrypt.ALPHABETSIZE];
+			for (Candidate candidate : BruteForceCandidates.xor(cipherText)) {
+				scores[candidate.getKey() + 128] = candidate.getScore();
+			}
+			double[] sortedScores = scores.clone();
+			Arrays.sort(sortedScores);
+			
+			for (int k : new int[] {0, 1, 5, 30, 256, 300}) {
+				List<Candidate> best = BruteForceCandidates.topXor(cipherText, k);
+				assert best.size() == Math.min(k, Decrypt.ALPHABETSIZE): "Test top XOR 1 failed";
+				boolean[] seen = new boolean[Decrypt.ALPHABETSIZE];
+				for (int i = 0; i < best.size(); i++) {
+					Candidate candidate = best.get(i);
+					assert !seen[candidate.getKey() + 128]: "Test top XOR 2 failed";
+					seen[candidate.getKey() + 128] = true;
+					assert candidate.getScore() == scores[candidate.getKey() + 128]: "Test top XOR 3 failed";
+					assert candidate.getScore() == sortedScores[sortedScores.length - 1 - i]: "Test top XOR 4 failed";
+				}
+			}
+		}
+		assert BruteForceCandidates.topXor(cipherTexts[0], Decrypt.XORCANDIDATES).get(0).getKey() == 50: "Test top XOR 5 failed";
 	}
 	
 	public static void testOneTimePadExamples() {
@@ -264,6 +401,699 @@ public class Main {
 		cipherText = Encrypt.vigenere(plainText , keyword);
 		expectedText = new byte[] {-15, 32, -1, -23, -10, -4};
 		assert MyCompareByteArrays(cipherText, expectedText): "Test vigenere 3 failed";		
+		
+		// Un mot-clé vide est accepté tant qu'aucun byte n'est crypté, comme avant les méthodes par intervalle
+		assert Encrypt.vigenere(new byte[0], new byte[0]).length == 0: "Test vigenere 4 failed";
+		assert MyCompareByteArrays(Encrypt.vigenere(new byte[] {32, 32}, new byte[0]), new byte[] {32, 32}): "Test vigenere 5 failed";
+		assert Encrypt.vigenere(plainText, 2, cipherText, 2, 0, new byte[0], 0, true) == 0: "Test vigenere 6 failed";
+		
+		// Recherche de clé sur plusieurs blocs de ParallelCipher : même clé que le comptage séquentiel colonne par colonne
+		String[] words = {"the", "of", "and", "to", "in", "is", "that", "it", "was", "for", "on", "are", "with", "they"};
+		Random random = new Random(23);
+		StringBuilder text = new StringBuilder();
+		while (text.length() < 3 * ParallelCipher.CHUNKSIZE) {
+			text.append(words[random.nextInt(words.length)]).append(' ');
+		}
+		cipherText = Encrypt.vigenere(stringToBytes(text.toString()), new byte[] {3, 14, 15, 9, 26, 5, 35});
+		int length = Decrypt.removeSpaces(cipherText, cipherText.length);
+		assert length > 2 * ParallelCipher.CHUNKSIZE: "Test vigenere 7 failed";
+		for (int keyLength : new int[] {1, 7, 13}) {
+			byte[] expectedKey = new byte[keyLength];
+			for (int i = 0; i < keyLength; i++) {
+				expectedKey[i] = Decrypt.caesarFindKey(Decrypt.computeFrequencies(cipherText, i, length, keyLength));
+			}
+			assert MyCompareByteArrays(Decrypt.vigenereFindKey(cipherText, length, keyLength), expectedKey): "Test vigenere 8 failed";
+		}
+		
+		// Aucune longueur de clé trouvée : clé vide
+		assert Decrypt.vigenereFindKey(cipherText, length, 0).length == 0: "Test vigenere 9 failed";
+		
+		// breakCipher ne teste que les MAXSHIFT premiers décalages, ce qui suffit pour une clé courte
+		cipherText = Encrypt.vigenere(stringToBytes(text.toString()), new byte[] {3, 14, 15, 9, 26, 5, 35});
+		assert Decrypt.breakCipher(bytesToString(cipherText), Encrypt.VIGENERE).equals(text.toString()): "Test vigenere 10 failed";
+	}
+	
+	public static void testCBCExamples() {
+		
+		// Valeurs données par les implémentations d'origine, avant BlockCBC
+		byte[] plainText = stringToBytes("the quick brown fox jumps");
+		byte[] iv = new byte[] {10, -20, 30, 40};
+		byte[] keyword = new byte[] {50, -10, 100};
+		
+		byte[] expectedCipher = new byte[] {-80, 122, -33, 58, -13, 5, 26, -117, -54, 27, -36, 43, -41, 98, 22, 61, -29, 3, -46, 79, -69, 108, 35, 113, -6};
+		byte[] cipherText = Bonus61.modifiedCBC(plainText, iv, keyword);
+		assert MyCompareByteArrays(cipherText, expectedCipher): "Test CBC 1 failed";
+		assert MyCompareByteArrays(Bonus61.decryptModifiedCBC(cipherText, iv, keyword), plainText): "Test CBC 2 failed";
+		
+		expectedCipher = new byte[] {126, -124, 123, 8, 15, -15, 18, 107, 100, -47, 112, 25, 11, -90, 30, 57, 109, -55, 102, 25, 7, -68, 11, 105, 116};
+		cipherText = Encrypt.cbc(plainText, iv);
+		assert MyCompareByteArrays(cipherText, expectedCipher): "Test CBC 3 failed";
+		assert MyCompareByteArrays(Decrypt.decryptCBC(cipherText, iv), plainText): "Test CBC 4 failed";
+	}
+	
+	public static void testCoincidencesExamples() {
+		
+		Random random = new Random(7);
+		int[] lengths = {2, 9, 100, Decrypt.FFTTHRESHOLD + 37, 5000};
+		
+		for (int length : lengths) {
+			
+			byte[] cipher = new byte[length];
+			for (int i = 0; i < length; i++) {
+				cipher[i] = (byte) (random.nextInt(12) - 128);
+			}
+			
+			// Comptage quadratique de référence
+			int[] expected = new int[length - 1];
+			for (int shift = 1; shift < length; shift++) {
+				for (int j = 0; j + shift < length; j++) {
+					if (cipher[j] == cipher[j + shift]) {
+						expected[shift - 1]++;
+					}
+				}
+			}
+			
+			assert Arrays.equals(Autocorrelation.coincidences(cipher, length), expected): "Test coincidences 1 failed";
+			assert Arrays.equals(Autocorrelation.coincidences(cipher, length, 64), Arrays.copyOf(expected, Math.min(64, length - 1))): "Test coincidences 2 failed";
+		}
+	}
+	
+	public static void testStreamCipherExamples() {
+		
+		byte[] plainText = stringToBytes("the quick brown fox jumps over the lazy dog");
+		byte[] keyword = new byte[] {50, -10, 100};
+		byte[] pad = Encrypt.generatePad(plainText.length);
+		
+		// Encoding in chunks of 5 bytes must give the same result as encoding the whole message
+		byte[] cipherText = plainText.clone();
+		StreamCipher cipher = StreamCipher.encrypting(Encrypt.VIGENERE, keyword);
+		for (int i = 0; i < cipherText.length; i += 5) {
+			cipher.update(cipherText, i, Math.min(5, cipherText.length - i));
+		}
+		assert MyCompareByteArrays(cipherText, Encrypt.vigenere(plainText, keyword)): "Test stream Vigenere 1 failed";
+		
+		cipherText = plainText.clone();
+		cipher = StreamCipher.encrypting(Encrypt.CBC, pad);
+		for (int i = 0; i < cipherText.length; i += 7) {
+			cipher.update(cipherText, i, Math.min(7, cipherText.length - i));
+		}
+		assert MyCompareByteArrays(cipherText, Encrypt.cbc(plainText, pad)): "Test stream CBC 1 failed";
+		
+		// Decoding in chunks
+		cipher = StreamCipher.decrypting(Encrypt.CBC, pad);
+		for (int i = 0; i < cipherText.length; i += 3) {
+			cipher.update(cipherText, i, Math.min(3, cipherText.length - i));
+		}
+		assert MyCompareByteArrays(cipherText, plainText): "Test stream CBC 2 failed";
+		
+		cipherText = plainText.clone();
+		cipher = StreamCipher.encrypting(Encrypt.ONETIME, pad);
+		cipher.update(cipherText, 0, 10);
+		cipher.update(cipherText, 10, cipherText.length - 10);
+		assert MyCompareByteArrays(cipherText, Encrypt.oneTimePad(plainText, pad)): "Test stream OTP 1 failed";
+	}
+	
+	public static void testCipherStreamsExamples() throws IOException {
+		
+		// Plusieurs tampons de CipherOutputStream, avec des tailles impaires qui coupent le mot-clé et les blocs CBC
+		Random random = new Random(1);
+		byte[] plainText = new byte[3 * CipherOutputStream.BUFFERSIZE + 555];
+		for (int i = 0; i < plainText.length; i++) {
+			plainText[i] = (random.nextInt(5) == 0) ? Encrypt.SPACE : (byte) ('a' + random.nextInt(26));
+		}
+		byte[] keyword = new byte[] {50, -10, 100, 7};
+		byte[] iv = Encrypt.generatePad(13);
+		int[] sizes = {1, 7, CipherOutputStream.BUFFERSIZE + 3, 4099, 13};
+		
+		for (int type : new int[] {Encrypt.VIGENERE, Encrypt.CBC}) {
+			
+			byte[] key = (type == Encrypt.CBC) ? iv : keyword;
+			byte[] expectedCipher = (type == Encrypt.CBC) ? Encrypt.cbc(plainText, iv) : Encrypt.vigenere(plainText, keyword, false);
+			byte[] written = plainText.clone();
+			
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (OutputStream out = new CipherOutputStream(bytes, StreamCipher.encrypting(type, key, false))) {
+				for (int offset = 0, s = 0; offset < written.length; s++) {
+					int size = Math.min(sizes[s % sizes.length], written.length - offset);
+					if (size == 1) {
+						out.write(written[offset]);
+					} else {
+						out.write(written, offset, size);
+					}
+					offset += size;
+				}
+			}
+			assert MyCompareByteArrays(bytes.toByteArray(), expectedCipher): "Test cipher output stream 1 failed for type " + type;
+			assert MyCompareByteArrays(written, plainText): "Test cipher output stream 2 failed for type " + type;
+			
+			byte[] read = new byte[plainText.length];
+			try (InputStream in = new CipherInputStream(new ByteArrayInputStream(expectedCipher), StreamCipher.decrypting(type, key, false))) {
+				int offset = 0;
+				for (int s = 0; offset < read.length; s++) {
+					int size = sizes[s % sizes.length];
+					if (size == 1) {
+						read[offset++] = (byte) in.read();
+					} else {
+						int count = in.read(read, offset, Math.min(size, read.length - offset));
+						assert count > 0: "Test cipher input stream 1 failed for type " + type;
+						offset += count;
+					}
+				}
+				assert in.read() == -1: "Test cipher input stream 2 failed for type " + type;
+			}
+			assert MyCompareByteArrays(read, plainText): "Test cipher input stream 3 failed for type " + type;
+			
+			// Les bytes sautés sont tout de même décodés : la suite reste juste
+			try (InputStream in = new CipherInputStream(new ByteArrayInputStream(expectedCipher), StreamCipher.decrypting(type, key, false))) {
+				assert in.skip(0) == 0 && in.skip(-5) == 0: "Test cipher input stream 4 failed for type " + type;
+				assert in.skip(CipherOutputStream.BUFFERSIZE + 1001) == CipherOutputStream.BUFFERSIZE + 1001: "Test cipher input stream 5 failed for type " + type;
+				byte[] rest = new byte[97];
+				assert in.read(rest, 0, rest.length) == rest.length: "Test cipher input stream 6 failed for type " + type;
+				int position = CipherOutputStream.BUFFERSIZE + 1001;
+				assert MyCompareByteArrays(rest, Arrays.copyOfRange(plainText, position, position + rest.length)): "Test cipher input stream 7 failed for type " + type;
+				
+				// Au-delà de la fin, seuls les bytes restants sont sautés
+				int remaining = plainText.length - position - rest.length;
+				assert in.skip(remaining + 10) == remaining && in.skip(1) == 0: "Test cipher input stream 8 failed for type " + type;
+			}
+		}
+	}
+	
+	public static void testParallelExamples() {
+		
+		// Plusieurs blocs de ParallelCipher, avec des espaces répartis inégalement entre les blocs
+		Random random = new Random(5);
+		byte[] plainText = new byte[3 * ParallelCipher.CHUNKSIZE + 777];
+		for (int i = 0; i < plainText.length; i++) {
+			boolean space = random.nextInt((i < ParallelCipher.CHUNKSIZE) ? 3 : 9) == 0;
+			plainText[i] = space ? Encrypt.SPACE : (byte) ('a' + random.nextInt(26));
+		}
+		byte[] keyword = new byte[] {50, -10, 100, 7, 3, 11, 13};
+		byte[] pad = Encrypt.generatePad(plainText.length);
+		
+		// L'index dans le mot-clé de chaque bloc doit suivre le nombre de lettres des blocs précédents
+		assert MyCompareByteArrays(ParallelCipher.vigenere(plainText, keyword, false), Encrypt.vigenere(plainText, keyword, false)): "Test parallel 1 failed";
+		assert MyCompareByteArrays(ParallelCipher.vigenere(plainText, keyword, true), Encrypt.vigenere(plainText, keyword, true)): "Test parallel 2 failed";
+		assert MyCompareByteArrays(ParallelCipher.caesar(plainText, (byte) 50, false), Encrypt.caesar(plainText, (byte) 50, false)): "Test parallel 3 failed";
+		assert MyCompareByteArrays(ParallelCipher.xor(plainText, (byte) 50, true), Encrypt.xor(plainText, (byte) 50, true)): "Test parallel 4 failed";
+		assert MyCompareByteArrays(ParallelCipher.oneTimePad(plainText, pad), Encrypt.oneTimePad(plainText, pad)): "Test parallel 5 failed";
+		
+		byte[] iv = Arrays.copyOf(pad, 13);
+		assert MyCompareByteArrays(ParallelCipher.decryptCBC(Encrypt.cbc(plainText, iv), iv), plainText): "Test parallel 6 failed";
+	}
 	
+	public static void testBatchCrackerExamples() {
+		
+		String sentence = "the quick brown fox jumps over the lazy dog and then it sleeps in the sun all the afternoon";
+		List<String> ciphers = new ArrayList<String>();
+		for (int i = 0; i < 7; i++) {
+			ciphers.add(bytesToString(Encrypt.caesar(stringToBytes(sentence), (byte) (10 * i + 3))));
+		}
+		
+		// Moins de slots que de messages : chaque résultat doit être celui de breakCipher pour son index
+		try (BatchCracker cracker = new BatchCracker(2)) {
+			boolean[] seen = new boolean[ciphers.size()];
+			for (CrackResult result : cracker.crack(ciphers, Encrypt.CAESAR)) {
+				int index = (int) result.getIndex();
+				assert result.getError() == null && !seen[index]: "Test batch 1 failed";
+				assert result.getPlainText().equals(Decrypt.breakCipher(ciphers.get(index), Encrypt.CAESAR)): "Test batch 2 failed";
+				seen[index] = true;
+			}
+			for (boolean found : seen) {
+				assert found: "Test batch 3 failed";
+			}
+			
+			// Un message qui ne peut pas être cracké, puis une source qui échoue
+			int errors = 0;
+			int count = 0;
+			for (CrackResult result : cracker.crack(Arrays.asList(ciphers.get(0), null, ciphers.get(1)), Encrypt.CAESAR)) {
+				errors += (result.getError() != null) ? 1 : 0;
+				count++;
+			}
+			assert count == 3 && errors == 1: "Test batch 4 failed";
+			
+			Iterator<CrackResult> results = cracker.crack(Stream.iterate(0, i -> i + 1).limit(5).map(i -> {
+				if (i == 3) {
+					throw new IllegalStateException("unreadable message");
+				}
+				return ciphers.get(i);
+			}), Encrypt.CAESAR);
+			errors = 0;
+			count = 0;
+			while (results.hasNext()) {
+				CrackResult result = results.next();
+				errors += (result.getError() instanceof IllegalStateException) ? 1 : 0;
+				count++;
+			}
+			assert count == 4 && errors == 1: "Test batch 5 failed";
+		}
+		
+		// Fermeture au milieu de la lecture : close() doit rendre la main et la lecture se terminer
+		BatchCracker cracker = new BatchCracker(1);
+		Iterator<CrackResult> results = cracker.crack(Stream.generate(() -> ciphers.get(0)), Encrypt.CAESAR);
+		assert results.next().getError() == null: "Test batch 6 failed";
+		cracker.close();
+		int remaining = 0;
+		while (results.hasNext()) {
+			results.next();
+			remaining++;
+		}
+		assert remaining <= 1: "Test batch 7 failed";
+	}
+	
+	public static void testCrackCacheExamples() {
+		
+		byte[] a = stringToBytes("first message");
+		byte[] b = stringToBytes("second message");
+		byte[] c = stringToBytes("third message");
+		
+		// Succès et échecs, et les mêmes bytes cassés avec deux méthodes différentes sont deux entrées
+		CrackCache cache = new CrackCache(10);
+		assert cache.get(Encrypt.CAESAR, a) == null: "Test cache 1 failed";
+		cache.put(Encrypt.CAESAR, a, new byte[] {3}, "caesar");
+		cache.put(Encrypt.XOR, a, new byte[] {5}, "xor");
+		assert cache.get(Encrypt.CAESAR, a).getPlainText().equals("caesar"): "Test cache 2 failed";
+		assert cache.get(Encrypt.XOR, a).getPlainText().equals("xor"): "Test cache 3 failed";
+		assert cache.get(Encrypt.VIGENERE, a) == null: "Test cache 4 failed";
+		assert cache.getHits() == 2 && cache.getMisses() == 2 && cache.size() == 2: "Test cache 5 failed";
+		
+		// LRU : l'entrée lue est gardée, FIFO : la plus ancienne part quand même
+		for (CrackCache.Eviction eviction : CrackCache.Eviction.values()) {
+			cache = new CrackCache(2, Long.MAX_VALUE, eviction);
+			cache.put(Encrypt.CAESAR, a, null, "a");
+			cache.put(Encrypt.CAESAR, b, null, "b");
+			cache.get(Encrypt.CAESAR, a);
+			cache.put(Encrypt.CAESAR, c, null, "c");
+			boolean lru = eviction == CrackCache.Eviction.LRU;
+			assert (cache.get(Encrypt.CAESAR, a) != null) == lru: "Test cache 6 failed";
+			assert (cache.get(Encrypt.CAESAR, b) != null) == !lru: "Test cache 7 failed";
+			assert cache.get(Encrypt.CAESAR, c) != null && cache.getEvictions() == 1: "Test cache 8 failed";
+		}
+		
+		// Taille en bytes : clair + clé, une entrée plus grande que tout le cache est refusée
+		cache = new CrackCache(10, 10, CrackCache.Eviction.FIFO);
+		cache.put(Encrypt.CAESAR, a, new byte[] {1}, "abcd");
+		cache.put(Encrypt.CAESAR, b, new byte[] {1}, "efgh");
+		assert cache.getBytes() == 10 && cache.size() == 2: "Test cache 9 failed";
+		cache.put(Encrypt.CAESAR, c, null, "ij");
+		assert cache.getBytes() == 7 && cache.get(Encrypt.CAESAR, a) == null: "Test cache 10 failed";
+		cache.put(Encrypt.XOR, c, null, "this is too long");
+		assert cache.get(Encrypt.XOR, c) == null && cache.getBytes() == 7 && cache.size() == 2: "Test cache 11 failed";
+	}
+	
+	public static void testCTRExamples() {
+		
+		// Assez long pour être découpé en plusieurs blocs de ParallelCipher
+		byte[] sentence = stringToBytes("the quick brown fox jumps over the lazy dog ");
+		byte[] plainText = new byte[3 * ParallelCipher.CHUNKSIZE + 1000];
+		for (int i = 0; i < plainText.length; i++) {
+			plainText[i] = sentence[i % sentence.length];
+		}
+		
+		byte[] iv = Encrypt.generatePad(12);
+		BlockCipher[] ciphers = {new BlockCipher.Vigenere(new byte[] {50, -10, 100}), new BlockCipher.Xor((byte) 77)};
+		
+		for (BlockCipher cipher : ciphers) {
+			
+			// Le résultat parallèle doit être le même que le résultat séquentiel
+			byte[] cipherText = BlockCTR.encrypt(plainText, iv, cipher);
+			byte[] sequential = new byte[plainText.length];
+			BlockCTR.apply(plainText, 0, sequential, 0, plainText.length, iv, cipher, 0);
+			assert MyCompareByteArrays(cipherText, sequential): "Test CTR 1 failed";
+			
+			assert MyCompareByteArrays(BlockCTR.decrypt(cipherText, iv, cipher), plainText): "Test CTR 2 failed";
+			
+			// Accès aléatoire : on décode une partie du message qui ne commence pas au début d'un bloc
+			int start = ParallelCipher.CHUNKSIZE + 5;
+			byte[] range = new byte[100];
+			BlockCTR.apply(cipherText, start, range, 0, range.length, iv, cipher, start);
+			assert MyCompareByteArrays(range, Arrays.copyOfRange(plainText, start, start + range.length)): "Test CTR 3 failed";
+		}
+	}
+	
+	public static void testIncrementalCrackerExamples() {
+		
+		// Texte anglais au hasard, découpé en morceaux de taille variable
+		String[] words = {"the", "of", "and", "to", "in", "is", "that", "it", "was", "for", "on", "are", "with", "they",
+				"be", "at", "one", "have", "this", "from", "word", "but", "what", "some", "we", "can", "out", "other"};
+		Random random = new Random(21);
+		StringBuilder text = new StringBuilder();
+		while (text.length() < 40000) {
+			text.append(words[random.nextInt(words.length)]).append(' ');
+		}
+		
+		byte[] cipherText = Encrypt.vigenere(stringToBytes(text.toString()), new byte[] {3, 14, 15, 9, 26});
+		IncrementalVigenereCracker cracker = new IncrementalVigenereCracker(64, Integer.MAX_VALUE);
+		for (int offset = 0; offset < cipherText.length; ) {
+			int length = Math.min(1 + random.nextInt(3000), cipherText.length - offset);
+			cracker.update(cipherText, offset, length);
+			offset += length;
+		}
+		IncrementalVigenereCracker.Estimate estimate = cracker.evaluate();
+		
+		// Même longueur et même clé que l'analyse en une fois des bytes sans espace
+		byte[] letters = cipherText.clone();
+		int length = Decrypt.removeSpaces(letters, letters.length);
+		int keyLength = Decrypt.vigenereFindKeyLength(letters, length, 64);
+		assert estimate.getKeyLength() == keyLength && keyLength == 5: "Test incremental cracker 1 failed";
+		assert MyCompareByteArrays(estimate.getKey(), Decrypt.vigenereFindKey(letters, length, keyLength)): "Test incremental cracker 2 failed";
+		assert estimate.getBytes() == length: "Test incremental cracker 3 failed";
+	}
+	
+	public static void testSecurePoolExamples() {
+		
+		PadGenerator.SecurePool pool = new PadGenerator.SecurePool(1);
+		byte[] pad = pool.generate(100);
+		assert pad.length == 100: "Test secure pool 1 failed";
+		
+		// Un consommateur qui attend des blocs doit être libéré par la fermeture du pool
+		IllegalStateException[] failure = new IllegalStateException[1];
+		Thread consumer = new Thread(() -> {
+			try {
+				pool.write(OutputStream.nullOutputStream(), Long.MAX_VALUE);
+			} catch (IllegalStateException e) {
+				failure[0] = e;
+			} catch (IOException e) {
+			}
+		});
+		consumer.setDaemon(true);
+		consumer.start();
+		
+		try {
+			Thread.sleep(50);
+			pool.close();
+			consumer.join(10000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		assert !consumer.isAlive() && failure[0] != null: "Test secure pool 2 failed";
+		
+		boolean refused = false;
+		try {
+			pool.generate(1);
+		} catch (IllegalStateException e) {
+			refused = true;
+		}
+		assert refused: "Test secure pool 3 failed";
+	}
+	
+	public static void testFileCipherExamples() throws IOException {
+		
+		// Plusieurs chunks de FileCipher : l'index dans le mot-clé dépend des espaces des chunks précédents
+		Random random = new Random(4);
+		byte[] plainText = new byte[3 * FileCipher.CHUNKSIZE + 321];
+		for (int i = 0; i < plainText.length; i++) {
+			plainText[i] = (random.nextInt(5) == 0) ? Encrypt.SPACE : (byte) ('a' + random.nextInt(26));
+		}
+		byte[] keyword = new byte[] {50, -10, 100, 7};
+		byte[] iv = Encrypt.generatePad(13);
+		Path source = Files.createTempFile("file", ".txt");
+		Path cipherFile = Files.createTempFile("file", ".bin");
+		Path target = Files.createTempFile("file", ".out");
+		
+		try {
+			
+			Files.write(source, plainText);
+			FileCipher.encrypt(source, cipherFile, Encrypt.VIGENERE, keyword, false);
+			assert MyCompareByteArrays(Files.readAllBytes(cipherFile), Encrypt.vigenere(plainText, keyword, false)): "Test file 1 failed";
+			FileCipher.decrypt(cipherFile, target, Encrypt.VIGENERE, keyword, false);
+			assert MyCompareByteArrays(Files.readAllBytes(target), plainText): "Test file 2 failed";
+			
+			FileCipher.encrypt(source, cipherFile, Encrypt.CBC, iv, false);
+			assert MyCompareByteArrays(Files.readAllBytes(cipherFile), Encrypt.cbc(plainText, iv)): "Test file 3 failed";
+			FileCipher.decrypt(cipherFile, target, Encrypt.CBC, iv, false);
+			assert MyCompareByteArrays(Files.readAllBytes(target), plainText): "Test file 4 failed";
+			
+			// Le même fichier en entrée et en sortie est refusé, même par un autre chemin, sans être vidé
+			for (Path same : new Path[] {source, source.getParent().resolve(".").resolve(source.getFileName())}) {
+				boolean refused = false;
+				try {
+					FileCipher.encrypt(source, same, Encrypt.VIGENERE, keyword, false);
+				} catch (IllegalArgumentException e) {
+					refused = true;
+				}
+				assert refused: "Test file 5 failed";
+				assert MyCompareByteArrays(Files.readAllBytes(source), plainText): "Test file 6 failed";
+			}
+			
+		} finally {
+			Files.deleteIfExists(source);
+			Files.deleteIfExists(cipherFile);
+			Files.deleteIfExists(target);
+		}
+	}
+	
+	public static void testRangeDecryptorExamples() throws IOException {
+		
+		// Plusieurs intervalles de l'index de Vigenere, avec des espaces
+		Random random = new Random(18);
+		byte[] plainText = new byte[3 * RangeDecryptor.CHECKPOINTINTERVAL + 123];
+		for (int i = 0; i < plainText.length; i++) {
+			plainText[i] = (random.nextInt(5) == 0) ? Encrypt.SPACE : (byte) ('a' + random.nextInt(26));
+		}
+		byte[] keyword = new byte[] {50, -10, 100};
+		byte[] pad = Encrypt.generatePad(plainText.length);
+		Path file = Files.createTempFile("range", ".bin");
+		
+		try {
+			
+			for (int type = Encrypt.CAESAR; type <= Encrypt.ONETIME; type++) {
+				for (boolean spaceEncoding : new boolean[] {false, true}) {
+					
+					byte[] key = (type == Encrypt.ONETIME) ? pad : (type == Encrypt.VIGENERE) ? keyword : new byte[] {keyword[0]};
+					byte[] cipherText;
+					switch (type) {
+						case Encrypt.CAESAR : cipherText = Encrypt.caesar(plainText, key[0], spaceEncoding); break;
+						case Encrypt.VIGENERE : cipherText = Encrypt.vigenere(plainText, key, spaceEncoding); break;
+						case Encrypt.XOR : cipherText = Encrypt.xor(plainText, key[0], spaceEncoding); break;
+						default : cipherText = Encrypt.oneTimePad(plainText, key); break;
+					}
+					Files.write(file, cipherText);
+					
+					RangeDecryptor decryptor = RangeDecryptor.open(file, type, key, spaceEncoding);
+					assert decryptor.size() == plainText.length: "Test range 1 failed";
+					
+					// Des intervalles au hasard, dont certains à cheval sur un point de l'index, et la fin du fichier
+					for (int test = 0; test < 50; test++) {
+						int offset = (test == 0) ? 0 : random.nextInt(plainText.length);
+						int length = (test == 1) ? plainText.length - offset : random.nextInt(Math.min(2 * RangeDecryptor.CHECKPOINTINTERVAL, plainText.length - offset) + 1);
+						assert MyCompareByteArrays(decryptor.decryptRange(offset, length), Arrays.copyOfRange(plainText, offset, offset + length))
+							: "Test range 2 failed for type " + type + " and space encoding " + spaceEncoding;
+					}
+				}
+			}
+			
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+	
+	public static void testSamplingCrackerExamples() throws IOException {
+		
+		// Fichier de plusieurs échantillons : la clé trouvée sur l'échantillon doit être celle de l'analyse complète
+		String[] words = {"the", "of", "and", "to", "in", "is", "that", "it", "was", "for", "on", "are", "with", "they"};
+		Random random = new Random(29);
+		StringBuilder text = new StringBuilder();
+		while (text.length() < 4 * SamplingCracker.SAMPLESIZE) {
+			text.append(words[random.nextInt(words.length)]).append(' ');
+		}
+		byte[] plainText = stringToBytes(text.toString());
+		byte[] cipherText = Encrypt.vigenere(plainText, new byte[] {3, 14, 15, 9, 26});
+		Path file = Files.createTempFile("sampling", ".bin");
+		Path target = Files.createTempFile("sampling", ".txt");
+		
+		try {
+			
+			Files.write(file, cipherText);
+			byte[] key = SamplingCracker.findKey(file, Encrypt.VIGENERE, SamplingCracker.SAMPLESIZE, SamplingCracker.STRATA, 1);
+			assert MyCompareByteArrays(key, Decrypt.vigenereFindDecodingKey(cipherText, SamplingCracker.MAXSHIFT)): "Test sampling 1 failed";
+			
+			assert MyCompareByteArrays(SamplingCracker.crackFile(file, target, Encrypt.VIGENERE), key): "Test sampling 2 failed";
+			assert MyCompareByteArrays(Files.readAllBytes(target), plainText): "Test sampling 3 failed";
+			
+			// La seconde moitié du fichier a une autre clé : la clé de l'échantillon ne passe pas la vérification
+			byte[] otherCipher = Encrypt.vigenere(plainText, new byte[] {50, -10, 100, 7, 3});
+			System.arraycopy(otherCipher, cipherText.length / 2, cipherText, cipherText.length / 2, cipherText.length - cipherText.length / 2);
+			Files.write(file, cipherText);
+			assert SamplingCracker.findKey(file, Encrypt.VIGENERE, SamplingCracker.SAMPLESIZE, SamplingCracker.STRATA, 1) == null: "Test sampling 4 failed";
+			
+			boolean refused = false;
+			try {
+				SamplingCracker.crackFile(file, target, Encrypt.VIGENERE);
+			} catch (IllegalStateException e) {
+				refused = true;
+			}
+			assert refused: "Test sampling 5 failed";
+			
+		} finally {
+			Files.deleteIfExists(file);
+			Files.deleteIfExists(target);
+		}
+	}
+	
+	public static void testPadStoreExamples() throws IOException {
+		
+		Path padFile = Files.createTempFile("pad", ".bin");
+		
+		try (PadGenerator.SecurePool pool = new PadGenerator.SecurePool()) {
+			PadStore.generate(padFile, 1000, pool);
+		}
+		byte[] padBytes = Files.readAllBytes(padFile);
+		
+		try {
+			
+			byte[] first = new byte[100];
+			try (PadStore store = PadStore.open(padFile)) {
+				store.reserve(100).get(first);
+				assert MyCompareByteArrays(first, Arrays.copyOfRange(padBytes, 0, 100)): "Test pad store 1 failed";
+				
+				// Un second store du même pad ne doit pas pouvoir donner les mêmes bytes
+				boolean refused = false;
+				try {
+					PadStore.open(padFile).close();
+				} catch (IllegalStateException e) {
+					refused = true;
+				}
+				assert refused: "Test pad store 2 failed";
+			}
+			
+			// Après réouverture, la consommation reprend après le premier intervalle
+			try (PadStore store = PadStore.open(padFile)) {
+				assert store.getOffset() == 100: "Test pad store 3 failed";
+				ByteBuffer second = store.reserve(50);
+				byte[] secondBytes = new byte[50];
+				second.get(secondBytes);
+				assert MyCompareByteArrays(secondBytes, Arrays.copyOfRange(padBytes, 100, 150)): "Test pad store 4 failed";
+				assert store.remaining() == 850: "Test pad store 5 failed";
+			}
+			
+		} finally {
+			Files.deleteIfExists(padFile);
+			Files.deleteIfExists(padFile.resolveSibling(padFile.getFileName() + ".offset"));
+		}
+	}
+	
+	public static void testCipherRegistryExamples() {
+		
+		// Un schéma ajouté à la main, qui renverse le message et sait se casser
+		int[] created = {0};
+		CipherRegistry.register(new CipherFactory() {
+			@Override
+			public int getType() {
+				return 42;
+			}
+			@Override
+			public String getName() {
+				return "reverse";
+			}
+			@Override
+			public Cipher create(byte[] key, boolean spaceEncoding) {
+				created[0]++;
+				return new Cipher() {
+					@Override
+					public byte[] encrypt(byte[] plainText) {
+						byte[] reversed = new byte[plainText.length];
+						for (int i = 0; i < plainText.length; i++) {
+							reversed[i] = plainText[plainText.length - 1 - i];
+						}
+						return reversed;
+					}
+					@Override
+					public byte[] decrypt(byte[] cipherText) {
+						return encrypt(cipherText);
+					}
+				};
+			}
+			@Override
+			public String breakCipher(String cipherText) {
+				return new StringBuilder(cipherText).reverse().toString();
+			}
+		});
+		
+		assert Encrypt.encrypt("abc", "k", 42).equals("cba"): "Test registry 1 failed";
+		assert Decrypt.breakCipher("cba", 42).equals("abc"): "Test registry 2 failed";
+		assert Decrypt.breakCipher("cba", 43).equals("cba") && Encrypt.encrypt("abc", "k", 43).equals("abc"): "Test registry 3 failed";
+		
+		// La clé n'est préparée qu'une fois pour plusieurs messages
+		assert Encrypt.encrypt("hello", "k", 42).equals("olleh") && created[0] == 1: "Test registry 4 failed";
+		Encrypt.encrypt("abc", "other", 42);
+		assert created[0] == 2: "Test registry 5 failed";
+		
+		// Un fournisseur enregistré après ne reçoit pas la clé préparée par l'ancien
+		CipherRegistry.register(new CipherFactory() {
+			@Override
+			public int getType() {
+				return 42;
+			}
+			@Override
+			public String getName() {
+				return "reverse";
+			}
+			@Override
+			public Cipher create(byte[] key, boolean spaceEncoding) {
+				return new BuiltinCiphers.Caesar().create(key, spaceEncoding);
+			}
+		});
+		assert Encrypt.encrypt("abc", "other", 42).equals(bytesToString(Encrypt.caesar(stringToBytes("abc"), (byte) 'o'))): "Test registry 6 failed";
+		assert Decrypt.breakCipher("cba", 42).equals("cba"): "Test registry 7 failed";
+		
+		String message = "the quick brown fox";
+		assert Encrypt.encrypt(message, "k", Encrypt.CAESAR).equals(bytesToString(Encrypt.caesar(stringToBytes(message), (byte) 'k'))): "Test registry 8 failed";
+		assert Encrypt.encrypt(message, "k", Encrypt.CAESAR).equals(bytesToString(Encrypt.caesar(stringToBytes(message), (byte) 'k'))): "Test registry 9 failed";
+	}
+	
+	public static void testMetricsExamples() {
+		
+		boolean wasEnabled = Metrics.isEnabled();
+		Metrics.setEnabled(true);
+		Metrics.reset();
+		
+		try {
+			
+			// Un appel compte une opération, quelle que soit la méthode utilisée en interne
+			byte[] plainText = stringToBytes("the quick brown fox jumps over the lazy dog");
+			Encrypt.caesar(plainText, (byte) 3);
+			assert Metrics.snapshot().get("encrypt.caesar").getOperations() == 1: "Test metrics 1 failed";
+			assert Metrics.snapshot().get("encrypt.caesar").getBytes() == plainText.length: "Test metrics 2 failed";
+			
+			// Les blocs Vigenere du CBC modifié ne sont pas comptés comme des Vigenere
+			byte[] iv = new byte[] {1, 2, 3, 4, 5};
+			byte[] blocks = new byte[8 * iv.length];
+			byte[] cipherText = Bonus61.modifiedCBC(blocks, iv, new byte[] {50, -10, 100});
+			Bonus61.decryptModifiedCBC(cipherText, iv, new byte[] {50, -10, 100});
+			assert Metrics.snapshot().get("encrypt.modifiedcbc").getOperations() == 1: "Test metrics 3 failed";
+			assert Metrics.snapshot().get("decrypt.modifiedcbc").getOperations() == 1: "Test metrics 4 failed";
+			assert Metrics.snapshot().get("encrypt.vigenere").getOperations() == 0: "Test metrics 5 failed";
+			
+			// Le décodage parallèle compte une opération pour tous ses blocs
+			byte[] large = new byte[3 * ParallelCipher.CHUNKSIZE];
+			Decrypt.decryptCBC(large, iv);
+			assert Metrics.snapshot().get("decrypt.cbc").getOperations() == 1: "Test metrics 6 failed";
+			assert Metrics.snapshot().get("decrypt.cbc").getBytes() == large.length: "Test metrics 7 failed";
+			assert Metrics.snapshot().get("encrypt.cbc").getOperations() == 0: "Test metrics 8 failed";
+			
+			// Les flux ne passent que par les méthodes offset/length, qui ne sont pas comptées
+			StreamCipher.encrypting(Encrypt.VIGENERE, new byte[] {50, -10, 100}).update(plainText.clone(), 0, plainText.length);
+			assert Metrics.snapshot().get("encrypt.vigenere").getOperations() == 0: "Test metrics 9 failed";
+			
+			// Les décodages essayés pendant un crack ne sont pas des encodages de l'utilisateur
+			Metrics.reset();
+			Decrypt.breakCipher(bytesToString(Encrypt.caesar(plainText, (byte) 3)), Encrypt.CAESAR);
+			Decrypt.caesarBruteForce(plainText);
+			Decrypt.breakCipher(bytesToString(plainText), Encrypt.XOR);
+			assert Metrics.snapshot().get("encrypt.caesar").getOperations() == 1: "Test metrics 10 failed";
+			assert Metrics.snapshot().get("encrypt.xor").getOperations() == 0: "Test metrics 11 failed";
+			assert Metrics.snapshot().get("crack.caesar").getOperations() == 1: "Test metrics 12 failed";
+			
+			// Le CBC modifié par l'interface Cipher est compté comme par Encrypt
+			Cipher cipher = CipherRegistry.forType(Encrypt.MODIFIEDCBC).create(iv, false);
+			cipher.decrypt(cipher.encrypt(blocks));
+			assert Metrics.snapshot().get("encrypt.modifiedcbc").getOperations() == 1: "Test metrics 13 failed";
+			assert Metrics.snapshot().get("decrypt.modifiedcbc").getOperations() == 1: "Test metrics 14 failed";
+			
+		} finally {
+			Metrics.reset();
+			Metrics.setEnabled(wasEnabled);
+		}
 	}
 }
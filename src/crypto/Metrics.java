@@ -0,0 +1,459 @@
+package crypto;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Optional instrumentation of Encrypt and Decrypt : number of operations, bytes processed and latency histogram
+ * for each scheme and direction ("encrypt.caesar", "decrypt.cbc"...), each cracking method ("crack.vigenere"...)
+ * and each phase of the frequency analysis ("phase.frequencies", "phase.coincidences", "phase.localmaxima",
+ * "phase.keylength", "phase.keysearch").
+ * The metrics are disabled by default : start() then only reads a volatile flag and record returns at once.
+ * Once enabled, each metric is published as an MXBean named crypto:type=Metrics,name=..., and snapshot() gives
+ * all of them to the program. The latencies are counted in buckets of powers of two nanoseconds.
+ * A call is counted once, by the public methods working on whole arrays (Encrypt, ParallelCipher, Decrypt.decryptCBC,
+ * Bonus61) : the offset/length methods used by the chunks, the streams and the other schemes are not counted.
+ * Caesar, Vigenere, XOR and the one time pad decode with their encoding method, so they only have encrypt metrics.
+ */
+
+public class Metrics {
+
+	public static final String DOMAIN = "crypto";
+
+	// Valeur de start() quand les métriques sont désactivées (System.nanoTime peut être négatif, donc pas 0)
+
+	static final long DISABLED = Long.MIN_VALUE;
+
+	private static volatile boolean enabled = false;
+
+	private static final Map<String, Metric> METRICS = new ConcurrentHashMap<String, Metric>();
+
+	public static final Metric FREQUENCIES = metric("phase.frequencies");
+	public static final Metric COINCIDENCES = metric("phase.coincidences");
+	public static final Metric LOCALMAXIMA = metric("phase.localmaxima");
+	public static final Metric KEYLENGTH = metric("phase.keylength");
+	public static final Metric KEYSEARCH = metric("phase.keysearch");
+
+	// Indexées par les constantes de Encrypt, null pour les schémas qui décodent avec la méthode d'encodage
+
+	private static final Metric[] ENCRYPTS = {metric("encrypt.caesar"), metric("encrypt.vigenere"), metric("encrypt.xor"),
+			metric("encrypt.onetimepad"), metric("encrypt.cbc"), metric("encrypt.modifiedcbc")};
+
+	private static final Metric[] DECRYPTS = {null, null, null, null, metric("decrypt.cbc"), metric("decrypt.modifiedcbc")};
+
+	private static final Metric[] CRACKS = {metric("crack.caesar"), metric("crack.vigenere"), metric("crack.xor")};
+
+	/**
+	 * Enables or disables the metrics. When they are enabled for the first time, they are registered as MXBeans.
+	 * @param on true to enable the metrics
+	 */
+
+	public static void setEnabled(boolean on) {
+
+		if (on) {
+
+			for (Metric metric : METRICS.values()) {
+
+				metric.register();
+			}
+		}
+
+		enabled = on;
+	}
+
+	/**
+	 * @return true if the metrics are enabled
+	 */
+
+	public static boolean isEnabled() {
+
+		return enabled;
+	}
+
+	/**
+	 * Starts timing an operation
+	 * @return the start time to give to record, or DISABLED if the metrics are disabled
+	 */
+
+	public static long start() {
+
+		return enabled ? System.nanoTime() : DISABLED;
+	}
+
+	/**
+	 * Records the encoding of a whole array with one of the schemes of Encrypt
+	 * @param type the scheme, as the constants of Encrypt
+	 * @param bytes the number of bytes processed
+	 * @param start the value returned by start()
+	 */
+
+	public static void encrypt(int type, long bytes, long start) {
+
+		if (start != DISABLED && type >= 0 && type < ENCRYPTS.length) {
+
+			ENCRYPTS[type].record(bytes, start);
+		}
+	}
+
+	/**
+	 * Records the decoding of a whole array with Encrypt.CBC or Encrypt.MODIFIEDCBC
+	 * @param type the scheme, as the constants of Encrypt
+	 * @param bytes the number of bytes processed
+	 * @param start the value returned by start()
+	 */
+
+	public static void decrypt(int type, long bytes, long start) {
+
+		if (start != DISABLED && type >= 0 && type < DECRYPTS.length && DECRYPTS[type] != null) {
+
+			DECRYPTS[type].record(bytes, start);
+		}
+	}
+
+	/**
+	 * Records a cracking operation of Decrypt.breakCipher
+	 * @param type the scheme, as the constants of Encrypt
+	 * @param bytes the number of bytes of the cipher text
+	 * @param start the value returned by start()
+	 */
+
+	public static void crack(int type, long bytes, long start) {
+
+		if (start != DISABLED && type >= 0 && type < CRACKS.length) {
+
+			CRACKS[type].record(bytes, start);
+		}
+	}
+
+	/**
+	 * Gives the metric with the given name, created (and registered if the metrics are enabled) the first time
+	 * @param name the name of the metric
+	 * @return the metric
+	 */
+
+	public static Metric metric(String name) {
+
+		assert(name != null);
+
+		Metric metric = METRICS.computeIfAbsent(name, Metric::new);
+
+		if (enabled) {
+
+			metric.register();
+		}
+
+		return metric;
+	}
+
+	/**
+	 * @return a snapshot of every metric, by name
+	 */
+
+	public static Map<String, Snapshot> snapshot() {
+
+		Map<String, Snapshot> snapshots = new TreeMap<String, Snapshot>();
+
+		for (Metric metric : METRICS.values()) {
+
+			snapshots.put(metric.getName(), metric.snapshot());
+		}
+
+		return snapshots;
+	}
+
+	/**
+	 * Sets every metric back to zero
+	 */
+
+	public static void reset() {
+
+		for (Metric metric : METRICS.values()) {
+
+			metric.reset();
+		}
+	}
+
+	//-----------------------JMX-------------------------
+
+	/**
+	 * Attributes of a metric published through JMX
+	 */
+
+	public interface MetricMXBean {
+
+		long getOperations();
+
+		long getBytes();
+
+		long getTotalNanos();
+
+		long getMaxNanos();
+
+		double getMeanNanos();
+
+		long getMedianNanos();
+
+		long getP99Nanos();
+
+		long[] getLatencyHistogram();
+
+		void reset();
+	}
+
+	//-----------------------Metric-------------------------
+
+	/**
+	 * Counters of one metric. The counters are LongAdders, so that threads recording at the same time do not contend.
+	 */
+
+	public static final class Metric implements MetricMXBean {
+
+		// Le seau i compte les durées d'au plus 2^i - 1 nanosecondes (et d'au moins 2^(i - 1))
+
+		static final int BUCKETS = Long.SIZE + 1;
+
+		private final String name;
+		private final LongAdder operations = new LongAdder();
+		private final LongAdder bytes = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+		private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+		private final AtomicBoolean registered = new AtomicBoolean();
+
+		private Metric(String name) {
+
+			this.name = name;
+		}
+
+		/**
+		 * Records an operation which started at the given time
+		 * @param bytesProcessed the number of bytes processed by the operation
+		 * @param start the value returned by Metrics.start()
+		 */
+
+		public void record(long bytesProcessed, long start) {
+
+			if (start == DISABLED) {
+
+				return;
+			}
+
+			long duration = Math.max(0, System.nanoTime() - start);
+
+			operations.increment();
+			bytes.add(bytesProcessed);
+			nanos.add(duration);
+			maxNanos.accumulate(duration);
+			histogram.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(duration));
+		}
+
+		/**
+		 * @return the name of the metric
+		 */
+
+		public String getName() {
+
+			return name;
+		}
+
+		/**
+		 * @return the current values of the counters
+		 */
+
+		public Snapshot snapshot() {
+
+			long[] buckets = new long[BUCKETS];
+
+			for (int i = 0; i < BUCKETS; i++) {
+
+				buckets[i] = histogram.get(i);
+			}
+
+			return new Snapshot(operations.sum(), bytes.sum(), nanos.sum(), maxNanos.get(), buckets);
+		}
+
+		@Override
+		public long getOperations() {
+
+			return operations.sum();
+		}
+
+		@Override
+		public long getBytes() {
+
+			return bytes.sum();
+		}
+
+		@Override
+		public long getTotalNanos() {
+
+			return nanos.sum();
+		}
+
+		@Override
+		public long getMaxNanos() {
+
+			return maxNanos.get();
+		}
+
+		@Override
+		public double getMeanNanos() {
+
+			return snapshot().getMeanNanos();
+		}
+
+		@Override
+		public long getMedianNanos() {
+
+			return snapshot().getPercentileNanos(0.5);
+		}
+
+		@Override
+		public long getP99Nanos() {
+
+			return snapshot().getPercentileNanos(0.99);
+		}
+
+		@Override
+		public long[] getLatencyHistogram() {
+
+			return snapshot().getLatencyHistogram();
+		}
+
+		@Override
+		public void reset() {
+
+			operations.reset();
+			bytes.reset();
+			nanos.reset();
+			maxNanos.reset();
+
+			for (int i = 0; i < BUCKETS; i++) {
+
+				histogram.set(i, 0);
+			}
+		}
+
+		private void register() {
+
+			if (!registered.compareAndSet(false, true)) {
+
+				return;
+			}
+
+			try {
+
+				ObjectName objectName = new ObjectName(DOMAIN + ":type=Metrics,name=" + ObjectName.quote(name));
+				ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+
+			} catch (JMException e) {
+
+				// Déjà enregistré par une autre copie de la classe : les métriques restent lisibles par snapshot()
+			}
+		}
+	}
+
+	//-----------------------Snapshot-------------------------
+
+	/**
+	 * Values of the counters of a metric at a given time
+	 */
+
+	public static final class Snapshot {
+
+		private final long operations;
+		private final long bytes;
+		private final long totalNanos;
+		private final long maxNanos;
+		private final long[] histogram;
+
+		private Snapshot(long operations, long bytes, long totalNanos, long maxNanos, long[] histogram) {
+
+			this.operations = operations;
+			this.bytes = bytes;
+			this.totalNanos = totalNanos;
+			this.maxNanos = maxNanos;
+			this.histogram = histogram;
+		}
+
+		public long getOperations() {
+
+			return operations;
+		}
+
+		public long getBytes() {
+
+			return bytes;
+		}
+
+		public long getTotalNanos() {
+
+			return totalNanos;
+		}
+
+		public long getMaxNanos() {
+
+			return maxNanos;
+		}
+
+		public double getMeanNanos() {
+
+			return (operations == 0) ? 0 : (double) totalNanos / operations;
+		}
+
+		/**
+		 * @return the number of operations in each bucket : bucket i holds the durations from 2^(i - 1) to 2^i - 1 nanoseconds
+		 */
+
+		public long[] getLatencyHistogram() {
+
+			return histogram.clone();
+		}
+
+		/**
+		 * @param percentile between 0 and 1
+		 * @return an upper bound of the duration under which this part of the operations took, in nanoseconds
+		 */
+
+		public long getPercentileNanos(double percentile) {
+
+			assert(percentile >= 0 && percentile <= 1);
+
+			long total = 0;
+
+			for (long count : histogram) {
+
+				total += count;
+			}
+
+			long rank = (long) Math.ceil(percentile * total);
+			long seen = 0;
+
+			for (int i = 0; i < histogram.length; i++) {
+
+				seen += histogram[i];
+
+				if (seen >= rank && seen > 0) {
+
+					return (i < Long.SIZE) ? (1L << i) - 1 : Long.MAX_VALUE;
+				}
+			}
+
+			return 0;
+		}
+
+		@Override
+		public String toString() {
+
+			return operations + " ops, " + bytes + " bytes, mean " + (long) getMeanNanos() + " ns, p99 " + getPercentileNanos(0.99) + " ns";
+		}
+	}
+}
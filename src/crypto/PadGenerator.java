@@ -0,0 +1,316 @@
+package crypto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+/**
+ * Fast generation of random pads and ivs.
+ * The static methods fill the pad 8 bytes at a time with the longs of the ThreadLocalRandom of the calling thread,
+ * so that threads never contend on a shared seed. Long pads are cut in chunks filled in parallel, each one
+ * with its own SplittableRandom split from a common root.
+ * These generators are not cryptographically secure : SecurePool gives the bytes of SecureRandom generators,
+ * filled in advance by background threads, so that writing a long pad is limited by the I/O rather than by the generator.
+ */
+
+public class PadGenerator {
+
+	/**
+	 * Generate a random pad/IV of bytes
+	 * @param size the size of the pad
+	 * @return random bytes in an array
+	 */
+
+	public static byte[] generate(int size) {
+
+		assert(size >= 0);
+
+		byte[] pad = new byte[size];
+
+		fill(pad, 0, size);
+
+		return pad;
+	}
+
+	/**
+	 * Fills a part of an array with random bytes, in parallel if it is longer than two chunks of ParallelCipher
+	 * @param pad the array to fill
+	 * @param offset the index of the first byte to fill
+	 * @param length the number of bytes to fill
+	 */
+
+	public static void fill(byte[] pad, int offset, int length) {
+
+		assert(pad != null);
+		assert(offset >= 0 && length >= 0 && offset + length <= pad.length);
+
+		int chunks = ParallelCipher.chunkCount(length);
+
+		if (chunks < 2) {
+
+			fill(pad, offset, length, ThreadLocalRandom.current());
+			return;
+		}
+
+		// Un générateur par bloc, créés à l'avance car un SplittableRandom ne doit pas être partagé entre threads
+
+		SplittableRandom root = new SplittableRandom(ThreadLocalRandom.current().nextLong());
+		SplittableRandom[] generators = new SplittableRandom[chunks];
+
+		for (int i = 0; i < chunks; i++) {
+
+			generators[i] = root.split();
+		}
+
+		ParallelCipher.forEachChunk(length, (chunk, chunkOffset, chunkLength) ->
+				fill(pad, offset + chunkOffset, chunkLength, generators[chunk]));
+	}
+
+	/**
+	 * Fills a part of an array with the longs of a generator
+	 */
+
+	private static void fill(byte[] pad, int offset, int length, RandomGenerator random) {
+
+		int i = 0;
+
+		for (; i + Long.BYTES <= length; i += Long.BYTES) {
+
+			XorKernel.LONGS.set(pad, offset + i, random.nextLong());
+		}
+
+		for (long word = random.nextLong(); i < length; i++, word >>>= 8) {
+
+			pad[offset + i] = (byte) word;
+		}
+	}
+
+	//-----------------------Secure pool-------------------------
+
+	/**
+	 * Pool of blocks of random bytes given by SecureRandom generators.
+	 * Background threads (one per core, each with its own DRBG SecureRandom) fill blocks of BLOCKSIZE bytes in advance
+	 * and put them in a bounded queue. The used blocks come back to the threads to be filled again, so that
+	 * the pool does not allocate once it is full. The pool must be closed to stop the threads : the calls waiting
+	 * for a block, and the later ones, then fail with an IllegalStateException.
+	 */
+
+	public static class SecurePool implements AutoCloseable {
+
+		public static final int BLOCKSIZE = 1024 * 1024;
+		public static final long CLOSEDPOLLINTERVAL = 100;
+
+		private final BlockingQueue<byte[]> ready;
+		private final BlockingQueue<byte[]> empty;
+		private final Thread[] producers;
+
+		private volatile boolean closed = false;
+
+		// Bloc en cours de consommation
+
+		private byte[] current;
+		private int position;
+
+		/**
+		 * Creates a pool and starts its threads
+		 * @param capacity the number of blocks filled in advance
+		 */
+
+		public SecurePool(int capacity) {
+
+			assert(capacity >= 1);
+
+			this.ready = new ArrayBlockingQueue<byte[]>(capacity);
+			this.empty = new ArrayBlockingQueue<byte[]>(capacity + 1);
+			this.producers = new Thread[Runtime.getRuntime().availableProcessors()];
+
+			for (int i = 0; i < producers.length; i++) {
+
+				producers[i] = new Thread(this::produce, "secure-pad-" + i);
+				producers[i].setDaemon(true);
+				producers[i].start();
+			}
+		}
+
+		/**
+		 * Creates a pool with 16 blocks filled in advance
+		 */
+
+		public SecurePool() {
+
+			this(16);
+		}
+
+		private void produce() {
+
+			SecureRandom random;
+
+			// DRBG n'a pas de verrou partagé entre les instances, contrairement à NativePRNG
+
+			try {
+
+				random = SecureRandom.getInstance("DRBG");
+
+			} catch (NoSuchAlgorithmException e) {
+
+				random = new SecureRandom();
+			}
+
+			try {
+
+				while (!Thread.currentThread().isInterrupted()) {
+
+					byte[] block = empty.poll();
+
+					if (block == null) {
+
+						block = new byte[BLOCKSIZE];
+					}
+
+					random.nextBytes(block);
+					ready.put(block);
+				}
+
+			} catch (InterruptedException e) {
+
+				// Le pool a été fermé
+			}
+		}
+
+		/**
+		 * Generate a secure random pad
+		 * @param size the size of the pad
+		 * @return random bytes in an array
+		 */
+
+		public byte[] generate(int size) {
+
+			assert(size >= 0);
+
+			byte[] pad = new byte[size];
+
+			fill(pad, 0, size);
+
+			return pad;
+		}
+
+		/**
+		 * Fills a part of an array with secure random bytes
+		 * @param pad the array to fill
+		 * @param offset the index of the first byte to fill
+		 * @param length the number of bytes to fill
+		 */
+
+		public synchronized void fill(byte[] pad, int offset, int length) {
+
+			assert(pad != null);
+			assert(offset >= 0 && length >= 0 && offset + length <= pad.length);
+
+			int done = 0;
+
+			while (done < length) {
+
+				int count = Math.min(length - done, BLOCKSIZE - nextBlock());
+
+				System.arraycopy(current, position, pad, offset + done, count);
+
+				position += count;
+				done += count;
+			}
+		}
+
+		/**
+		 * Writes secure random bytes in a stream, typically a one time pad in a file
+		 * @param out the stream
+		 * @param size the number of bytes to write
+		 */
+
+		public synchronized void write(OutputStream out, long size) throws IOException {
+
+			assert(out != null);
+			assert(size >= 0);
+
+			long done = 0;
+
+			while (done < size) {
+
+				int count = (int) Math.min(size - done, BLOCKSIZE - nextBlock());
+
+				out.write(current, position, count);
+
+				position += count;
+				done += count;
+			}
+		}
+
+		/**
+		 * Takes a new block when the current one is used up
+		 * @return the position in the current block
+		 * @throws IllegalStateException if the pool is closed
+		 */
+
+		private int nextBlock() {
+
+			checkOpen();
+
+			if (current == null || position == BLOCKSIZE) {
+
+				if (current != null) {
+
+					empty.offer(current);
+					current = null;
+				}
+
+				try {
+
+					// On attend par intervalles, pour voir la fermeture du pool même si plus aucun bloc n'arrive
+
+					while (current == null) {
+
+						checkOpen();
+						current = ready.poll(CLOSEDPOLLINTERVAL, TimeUnit.MILLISECONDS);
+					}
+
+				} catch (InterruptedException e) {
+
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while waiting for random bytes", e);
+				}
+
+				position = 0;
+			}
+
+			return position;
+		}
+
+		private void checkOpen() {
+
+			if (closed) {
+
+				throw new IllegalStateException("The secure pool is closed");
+			}
+		}
+
+		/**
+		 * Stops the background threads. The calls waiting for random bytes fail within CLOSEDPOLLINTERVAL milliseconds.
+		 */
+
+		@Override
+		public void close() {
+
+			closed = true;
+
+			for (Thread producer : producers) {
+
+				producer.interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package crypto;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One time pad kept on disk and memory mapped, which hands out ranges of pad that never overlap.
+ * The number of pad bytes already given is kept in a sidecar file (the pad file name followed by ".offset").
+ * It is written and forced to the disk before a range is given, so that after a crash or a restart the store
+ * starts after every range it has ever given : a pad byte is never used twice, at worst a range is lost.
+ * The ranges are read only mapped buffers, used with Encrypt.oneTimePad(..., ByteBuffer pad, int padOff)
+ * without copying the pad on the heap.
+ * A store holds an exclusive lock on the sidecar file until it is closed : two stores of the same pad, in this
+ * process or in another one, would otherwise give the same ranges.
+ */
+
+public class PadStore implements AutoCloseable {
+
+	private final FileChannel pad;
+	private final FileChannel offsetFile;
+	private final ByteBuffer offsetBuffer = ByteBuffer.allocate(Long.BYTES);
+	private final long size;
+
+	private long offset;
+
+	private PadStore(FileChannel pad, FileChannel offsetFile, long size, long offset) {
+
+		this.pad = pad;
+		this.offsetFile = offsetFile;
+		this.size = size;
+		this.offset = offset;
+	}
+
+	/**
+	 * Writes a new pad file of secure random bytes, and starts its consumption from the beginning
+	 * @param padFile the pad file, replaced if it exists
+	 * @param size the number of bytes of the pad
+	 * @param pool the secure pool giving the bytes
+	 */
+
+	public static void generate(Path padFile, long size, PadGenerator.SecurePool pool) throws IOException {
+
+		assert(padFile != null);
+		assert(size >= 0);
+		assert(pool != null);
+
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(padFile), PadGenerator.SecurePool.BLOCKSIZE)) {
+
+			pool.write(out, size);
+		}
+
+		Files.deleteIfExists(offsetPath(padFile));
+	}
+
+	/**
+	 * Opens a pad file, restarting after the last range given by the previous stores of the same file
+	 * @param padFile the pad file
+	 * @return the store
+	 * @throws IllegalStateException if another store of the same pad is still open
+	 */
+
+	public static PadStore open(Path padFile) throws IOException {
+
+		assert(padFile != null);
+
+		FileChannel pad = FileChannel.open(padFile, StandardOpenOption.READ);
+
+		try {
+
+			FileChannel offsetFile = FileChannel.open(offsetPath(padFile), StandardOpenOption.CREATE,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+			// Le verrou est relâché par la fermeture du canal, dans close()
+
+			if (!lock(offsetFile)) {
+
+				offsetFile.close();
+				throw new IllegalStateException("The one time pad " + padFile + " is already open");
+			}
+
+			long offset = 0;
+
+			if (offsetFile.size() >= Long.BYTES) {
+
+				ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+
+				while (buffer.hasRemaining() && offsetFile.read(buffer, buffer.position()) >= 0) {}
+
+				offset = buffer.getLong(0);
+			}
+
+			return new PadStore(pad, offsetFile, pad.size(), offset);
+
+		} catch (IOException | RuntimeException e) {
+
+			pad.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gives the next range of pad, which no other call (even after a restart) will give again
+	 * @param length the number of bytes of the range
+	 * @return a read only buffer on the range, from index 0 to length
+	 * @throws IllegalStateException if the pad has less than length bytes left
+	 */
+
+	public synchronized ByteBuffer reserve(int length) throws IOException {
+
+		assert(length >= 0);
+
+		if (length > remaining()) {
+
+			throw new IllegalStateException("The one time pad has only " + remaining() + " bytes left, " + length + " needed");
+		}
+
+		long start = offset;
+
+		// On rend la consommation durable avant de donner le pad, jamais après
+
+		offsetBuffer.clear();
+		offsetBuffer.putLong(0, start + length);
+
+		while (offsetBuffer.hasRemaining()) {
+
+			offsetFile.write(offsetBuffer, offsetBuffer.position());
+		}
+
+		offsetFile.force(true);
+		offset = start + length;
+
+		return pad.map(FileChannel.MapMode.READ_ONLY, start, length);
+	}
+
+	/**
+	 * @return the number of pad bytes already given
+	 */
+
+	public synchronized long getOffset() {
+
+		return offset;
+	}
+
+	/**
+	 * @return the number of pad bytes not given yet
+	 */
+
+	public synchronized long remaining() {
+
+		return size - offset;
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		try {
+
+			pad.close();
+
+		} finally {
+
+			offsetFile.close();
+		}
+	}
+
+	/**
+	 * @return true if the exclusive lock of the whole file was taken, false if another store holds it
+	 */
+
+	private static boolean lock(FileChannel channel) throws IOException {
+
+		try {
+
+			FileLock lock = channel.tryLock();
+
+			return lock != null;
+
+		} catch (OverlappingFileLockException e) {
+
+			// Déjà verrouillé par un autre canal de ce processus
+
+			return false;
+		}
+	}
+
+	private static Path offsetPath(Path padFile) {
+
+		return padFile.resolveSibling(padFile.getFileName() + ".offset");
+	}
+}
@@ -0,0 +1,335 @@
+package crypto;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel versions of the Encrypt schemes that have no dependency between bytes.
+ * The message is cut in chunks of CHUNKSIZE bytes (small enough to stay in the cache of a core)
+ * which are encoded by the tasks of a ForkJoinPool with the offset/length methods of Encrypt.
+ * Messages shorter than two chunks are encoded sequentially.
+ */
+
+public class ParallelCipher {
+
+	public static final int CHUNKSIZE = 256 * 1024;
+
+	// Volatile : le pool peut être changé par un autre thread que ceux qui l'utilisent
+
+	private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	/**
+	 * Part of the work applied to one chunk of the message
+	 */
+
+	interface ChunkAction {
+
+		void apply(int chunk, int offset, int length);
+	}
+
+	/**
+	 * Changes the pool used by the parallel methods (the common pool by default)
+	 * @param forkJoinPool the pool to use
+	 */
+
+	public static void setPool(ForkJoinPool forkJoinPool) {
+
+		assert(forkJoinPool != null);
+		pool = forkJoinPool;
+	}
+
+	//-----------------------Caesar-------------------------
+
+	/**
+	 * Parallel version of Encrypt.caesar
+	 * @param plainText The byte array representing the string to encode
+	 * @param key the byte corresponding to the char we use to shift
+	 * @param spaceEncoding if false, then spaces are not encoded
+	 * @return an encoded byte array
+	 */
+
+	public static byte[] caesar(byte[] plainText, byte key, boolean spaceEncoding) {
+
+		assert(plainText != null);
+
+		long start = Metrics.start();
+
+		byte[] cipherText = new byte[plainText.length];
+
+		forEachChunk(plainText.length, (chunk, offset, length) ->
+				Encrypt.caesar(plainText, offset, cipherText, offset, length, key, spaceEncoding));
+
+		Metrics.encrypt(Encrypt.CAESAR, plainText.length, start);
+
+		return cipherText;
+	}
+
+	//-----------------------XOR-------------------------
+
+	/**
+	 * Parallel version of Encrypt.xor
+	 * @param plainText the byte array representing the string to encode
+	 * @param key the byte we will use to XOR
+	 * @param spaceEncoding if false, then spaces are not encoded
+	 * @return an encoded byte array
+	 */
+
+	public static byte[] xor(byte[] plainText, byte key, boolean spaceEncoding) {
+
+		assert(plainText != null);
+
+		long start = Metrics.start();
+
+		byte[] cipherText = new byte[plainText.length];
+
+		forEachChunk(plainText.length, (chunk, offset, length) ->
+				Encrypt.xor(plainText, offset, cipherText, offset, length, key, spaceEncoding));
+
+		Metrics.encrypt(Encrypt.XOR, plainText.length, start);
+
+		return cipherText;
+	}
+
+	//-----------------------Vigenere-------------------------
+
+	/**
+	 * Parallel version of Encrypt.vigenere
+	 * Each chunk needs the index in the keyword of its first byte. When spaces are encoded it is simply the offset
+	 * of the chunk modulo the keyword length, otherwise the spaces of each chunk are first counted in parallel
+	 * and the index is the number of non space bytes before the chunk modulo the keyword length.
+	 * @param plainText the byte array representing the message to encode
+	 * @param keyword the byte array representing the key used to perform the shift
+	 * @param spaceEncoding if false, then spaces are not encoded
+	 * @return an encoded byte array
+	 */
+
+	public static byte[] vigenere(byte[] plainText, byte[] keyword, boolean spaceEncoding) {
+
+		assert(plainText != null);
+		assert(keyword != null);
+
+		long start = Metrics.start();
+
+		byte[] cipherText = new byte[plainText.length];
+		int[] keywordIndices = keywordIndices(plainText, keyword.length, spaceEncoding);
+
+		forEachChunk(plainText.length, (chunk, offset, length) ->
+				Encrypt.vigenere(plainText, offset, cipherText, offset, length, keyword, keywordIndices[chunk], spaceEncoding));
+
+		Metrics.encrypt(Encrypt.VIGENERE, plainText.length, start);
+
+		return cipherText;
+	}
+
+	/**
+	 * Method that computes the keyword index of the first byte of each chunk
+	 * @param plainText the message to encode
+	 * @param keywordLength the length of the keyword
+	 * @param spaceEncoding if false, then spaces do not move the keyword index
+	 * @return the keyword index for each chunk
+	 */
+
+	private static int[] keywordIndices(byte[] plainText, int keywordLength, boolean spaceEncoding) {
+
+		int chunks = chunkCount(plainText.length);
+		int[] keywordIndices = new int[chunks];
+
+		if (spaceEncoding) {
+
+			for (int i = 0; i < chunks; i++) {
+
+				keywordIndices[i] = (int) (((long) i * CHUNKSIZE) % keywordLength);
+			}
+
+			return keywordIndices;
+		}
+
+		int[] letters = new int[chunks];
+
+		forEachChunk(plainText.length, (chunk, offset, length) ->
+				letters[chunk] = length - XorKernel.countSpaces(plainText, offset, length));
+
+		// Somme préfixe : l'index du bloc i dépend du nombre de lettres dans les blocs qui le précèdent
+
+		int keywordIndex = 0;
+
+		for (int i = 0; i < chunks; i++) {
+
+			keywordIndices[i] = keywordIndex;
+			keywordIndex = (int) ((keywordIndex + (long) letters[i]) % keywordLength);
+		}
+
+		return keywordIndices;
+	}
+
+	//-----------------------One Time Pad-------------------------
+
+	/**
+	 * Parallel version of Encrypt.oneTimePad
+	 * @param plainText the byte array representing the string to encode
+	 * @param pad the one time pad
+	 * @return an encoded byte array
+	 */
+
+	public static byte[] oneTimePad(byte[] plainText, byte[] pad) {
+
+		assert(plainText != null);
+		assert(pad != null);
+		assert(pad.length >= plainText.length);
+
+		long start = Metrics.start();
+
+		byte[] cipherText = new byte[plainText.length];
+
+		forEachChunk(plainText.length, (chunk, offset, length) ->
+				Encrypt.oneTimePad(plainText, offset, cipherText, offset, length, pad, offset));
+
+		Metrics.encrypt(Encrypt.ONETIME, plainText.length, start);
+
+		return cipherText;
+	}
+
+	//-----------------------Basic CBC-------------------------
+
+	/**
+	 * Parallel version of Decrypt.decryptCBC
+	 * The encoding is sequential, but every clear byte only depends on the cipher byte and the cipher byte one block
+	 * before it (or the iv for the first block), so each chunk can be decoded on its own, reading the previous block
+	 * directly in the cipher text.
+	 * @param cipher the byte array representing the encoded text
+	 * @param iv the pad of size BLOCKSIZE used to start the chain encoding
+	 * @return the clear text
+	 */
+
+	public static byte[] decryptCBC(byte[] cipher, byte[] iv) {
+
+		assert(cipher != null);
+		assert(iv != null);
+
+		long startTime = Metrics.start();
+
+		byte[] plainText = new byte[cipher.length];
+		int blockSize = iv.length;
+
+		forEachChunk(cipher.length, (chunk, offset, length) -> {
+
+			// Seuls les bytes du premier bloc utilisent le iv
+
+			int firstBlock = Math.min(length, Math.max(0, blockSize - offset));
+
+			for (int i = offset; i < offset + firstBlock; i++) {
+
+				plainText[i] = (byte) (cipher[i] ^ iv[i]);
+			}
+
+			int start = offset + firstBlock;
+			XorKernel.xor(cipher, start, cipher, start - blockSize, plainText, start, length - firstBlock);
+		});
+
+		Metrics.decrypt(Encrypt.CBC, cipher.length, startTime);
+
+		return plainText;
+	}
+
+	//-----------------------Helpers-------------------------
+
+	static int chunkCount(int length) {
+
+		return (int) (((long) length + CHUNKSIZE - 1) / CHUNKSIZE);
+	}
+
+	/**
+	 * @return the number of threads of the pool used by the parallel methods
+	 */
+
+	static int parallelism() {
+
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Applies an action to the indices 0 to count - 1 in parallel on the pool, for independent pieces of work
+	 * which are not parts of a message (the columns of a key for instance)
+	 * @param count the number of indices
+	 * @param action the action applied to each index
+	 */
+
+	static void forEachIndex(int count, IntConsumer action) {
+
+		if (count < 2) {
+
+			if (count == 1) {
+
+				action.accept(0);
+			}
+
+		} else {
+
+			// Un stream parallèle lancé depuis une tâche du pool s'exécute dans ce pool
+
+			pool.submit(() -> IntStream.range(0, count).parallel().forEach(action)).join();
+		}
+	}
+
+	/**
+	 * Applies an action to every chunk of a message of the given length, in parallel if there is more than one chunk
+	 * @param length the length of the message
+	 * @param action the action applied to each chunk
+	 */
+
+	static void forEachChunk(int length, ChunkAction action) {
+
+		int chunks = chunkCount(length);
+
+		if (chunks < 2) {
+
+			if (length > 0) {
+
+				action.apply(0, 0, length);
+			}
+
+		} else {
+
+			pool.invoke(new ChunkTask(action, length, 0, chunks));
+		}
+	}
+
+	/**
+	 * Task applying an action to a range of chunks, split in two halves until a single chunk is left
+	 */
+
+	private static class ChunkTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ChunkAction action;
+		private final int length;
+		private final int from;
+		private final int to;
+
+		ChunkTask(ChunkAction action, int length, int from, int to) {
+
+			this.action = action;
+			this.length = length;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (to - from == 1) {
+
+				int offset = from * CHUNKSIZE;
+				action.apply(from, offset, Math.min(CHUNKSIZE, length - offset));
+
+			} else {
+
+				int middle = (from + to) >>> 1;
+				invokeAll(new ChunkTask(action, length, from, middle), new ChunkTask(action, length, middle, to));
+			}
+		}
+	}
+}
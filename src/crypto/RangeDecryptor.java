@@ -0,0 +1,227 @@
+package crypto;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Decodes any range of a file encoded with Caesar, Vigenere, XOR or the one time pad, without decoding what comes before.
+ * Caesar and XOR do not depend on the position, and the one time pad uses the pad byte at the same position.
+ * Vigenere only moves in the keyword on non space bytes when spaces are not encoded, so the keyword index at an offset
+ * depends on the whole beginning of the file : it is kept every CHECKPOINTINTERVAL bytes in a small index built once
+ * from the cipher text (the decoding keeps the cipher spaces exactly like StreamCipher), and a range only needs
+ * the spaces between the previous checkpoint and its start. A range of n bytes costs O(n + CHECKPOINTINTERVAL).
+ */
+
+public class RangeDecryptor {
+
+	public static final int CHECKPOINTINTERVAL = 64 * 1024;
+
+	private final Path file;
+	private final int type;
+	private final byte[] key;
+	private final boolean spaceEncoding;
+	private final long size;
+
+	// Index dans le mot-clé du premier byte de chaque intervalle, seulement pour Vigenere sans codage des espaces
+
+	private final int[] checkpoints;
+
+	private RangeDecryptor(Path file, int type, byte[] key, boolean spaceEncoding, long size, int[] checkpoints) {
+
+		this.file = file;
+		this.type = type;
+		this.key = key;
+		this.spaceEncoding = spaceEncoding;
+		this.size = size;
+		this.checkpoints = checkpoints;
+	}
+
+	/**
+	 * Prepares the range decoding of an encoded file, reading the whole file once if it was encoded with Vigenere without spaces
+	 * @param file the encoded file
+	 * @param type the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad
+	 * @param key the key used to encode, or the pad for the one time pad
+	 * @param spaceEncoding must be the same as the one used to encode
+	 * @return the range decoder of the file
+	 * @throws IllegalArgumentException if the type is not one of the four above
+	 */
+
+	public static RangeDecryptor open(Path file, int type, byte[] key, boolean spaceEncoding) throws IOException {
+
+		assert(file != null);
+		assert(key != null);
+		assert(key.length > 0);
+
+		byte[] decodingKey;
+
+		switch (type) {
+
+			case Encrypt.CAESAR :
+			case Encrypt.VIGENERE :
+
+				// On décrypte avec l'inverse de la clé de cryptage
+
+				decodingKey = new byte[key.length];
+
+				for (int i = 0; i < key.length; i++) {
+
+					decodingKey[i] = (byte) (-key[i]);
+				}
+				break;
+
+			case Encrypt.XOR :
+
+				decodingKey = key.clone();
+				break;
+
+			case Encrypt.ONETIME :
+
+				// Le pad n'est pas copié pour ne pas doubler la mémoire
+
+				decodingKey = key;
+				break;
+
+			default :
+
+				throw new IllegalArgumentException("No random access for the encryption type : " + type);
+		}
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+			long size = channel.size();
+			int[] checkpoints = null;
+
+			if (type == Encrypt.VIGENERE && !spaceEncoding) {
+
+				checkpoints = buildCheckpoints(channel, size, key.length);
+			}
+
+			return new RangeDecryptor(file, type, decodingKey, spaceEncoding, size, checkpoints);
+		}
+	}
+
+	/**
+	 * Method that decodes a part of the file
+	 * @param offset the position in the file of the first byte to decode
+	 * @param length the number of bytes to decode
+	 * @return the clear bytes
+	 * @throws IllegalArgumentException if the range is not in the file (or in the pad)
+	 */
+
+	public byte[] decryptRange(long offset, int length) throws IOException {
+
+		if (offset < 0 || length < 0 || offset + length > size) {
+
+			throw new IllegalArgumentException("The range [" + offset + ", " + (offset + length) + ") is not in the file of " + size + " bytes");
+		}
+
+		// Pour Vigenere sans codage des espaces, on relit depuis le dernier point de contrôle
+
+		long start = (checkpoints != null) ? offset / CHECKPOINTINTERVAL * CHECKPOINTINTERVAL : offset;
+		int prefix = (int) (offset - start);
+
+		byte[] buffer = new byte[prefix + length];
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+			read(channel, start, buffer, buffer.length);
+		}
+
+		switch (type) {
+
+			case Encrypt.CAESAR :
+
+				Encrypt.caesar(buffer, 0, buffer, 0, length, key[0], spaceEncoding);
+				break;
+
+			case Encrypt.XOR :
+
+				Encrypt.xor(buffer, 0, buffer, 0, length, key[0], spaceEncoding);
+				break;
+
+			case Encrypt.VIGENERE :
+
+				int keywordIndex;
+
+				if (checkpoints == null) {
+
+					keywordIndex = (int) (offset % key.length);
+
+				} else {
+
+					int letters = prefix - XorKernel.countSpaces(buffer, 0, prefix);
+					keywordIndex = (checkpoints[(int) (start / CHECKPOINTINTERVAL)] + letters) % key.length;
+				}
+
+				Encrypt.vigenere(buffer, prefix, buffer, prefix, length, key, keywordIndex, spaceEncoding);
+				break;
+
+			case Encrypt.ONETIME :
+
+				if (offset + length > key.length) {
+
+					throw new IllegalArgumentException("The one time pad is shorter than the range");
+				}
+
+				Encrypt.oneTimePad(buffer, 0, buffer, 0, length, key, (int) offset);
+				break;
+		}
+
+		return (prefix == 0) ? buffer : Arrays.copyOfRange(buffer, prefix, buffer.length);
+	}
+
+	/**
+	 * @return the size of the file
+	 */
+
+	public long size() {
+
+		return size;
+	}
+
+	/**
+	 * Reads the whole file once and computes the keyword index at the start of each interval
+	 */
+
+	private static int[] buildCheckpoints(FileChannel channel, long size, int keywordLength) throws IOException {
+
+		int[] checkpoints = new int[(int) ((size + CHECKPOINTINTERVAL - 1) / CHECKPOINTINTERVAL) + 1];
+		byte[] chunk = new byte[CHECKPOINTINTERVAL];
+		int keywordIndex = 0;
+
+		for (int i = 0; (long) i * CHECKPOINTINTERVAL < size; i++) {
+
+			checkpoints[i] = keywordIndex;
+
+			int length = (int) Math.min(CHECKPOINTINTERVAL, size - (long) i * CHECKPOINTINTERVAL);
+			read(channel, (long) i * CHECKPOINTINTERVAL, chunk, length);
+
+			int letters = length - XorKernel.countSpaces(chunk, 0, length);
+			keywordIndex = (keywordIndex + letters) % keywordLength;
+		}
+
+		return checkpoints;
+	}
+
+	/**
+	 * Reads length bytes of the channel from the given position into the beginning of the array
+	 */
+
+	static void read(FileChannel channel, long position, byte[] array, int length) throws IOException {
+
+		ByteBuffer buffer = ByteBuffer.wrap(array, 0, length);
+
+		while (buffer.hasRemaining()) {
+
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+
+				throw new EOFException("Unexpected end of file at " + (position + buffer.position()));
+			}
+		}
+	}
+}
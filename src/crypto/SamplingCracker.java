@@ -0,0 +1,388 @@
+package crypto;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Recovers the key of a very large Caesar or Vigenere file from a sample, so that the time to find the key does not depend
+ * on the size of the file. The sample is stratified : the file is cut in strata of the same size, and a segment is read
+ * at a random position in each stratum. The first segment of the first sample starts at the beginning of the file.
+ * For Vigenere, the coincidences do not depend on the position in the keyword, so those of the segments are added to find
+ * the key length. The position in the keyword at the start of the other segments is unknown (it depends on the number
+ * of spaces before them), so the column histograms of each segment are rotated to match the columns already gathered,
+ * starting with the first segment, which is aligned with the start of the file.
+ * The key is then checked on a second sample : decoded with it, the letters must have the frequencies of English.
+ */
+
+public class SamplingCracker {
+
+	public static final int SAMPLESIZE = 256 * 1024;
+	public static final int STRATA = 16;
+	public static final int MAXSHIFT = Decrypt.MAXSHIFT;
+	public static final double MINSCORE = 0.055;
+
+	/**
+	 * Method that finds the key of a file, decodes it into another file and returns the key
+	 * @param source the encoded file
+	 * @param target the file receiving the clear text, replaced if it exists
+	 * @param type the method used to encode : 0 = Caesar, 1 = Vigenere
+	 * @return the decoding key (one byte for Caesar)
+	 * @throws IllegalStateException if the key found on the sample could not be verified
+	 */
+
+	public static byte[] crackFile(Path source, Path target, int type) throws IOException {
+
+		byte[] key = findKey(source, type, SAMPLESIZE, STRATA, System.nanoTime());
+
+		if (key == null) {
+
+			throw new IllegalStateException("The key found on the sample of " + source + " could not be verified");
+		}
+
+		// FileCipher attend la clé de cryptage : c'est l'inverse de la clé de décryptage
+
+		byte[] encodingKey = new byte[key.length];
+
+		for (int i = 0; i < key.length; i++) {
+
+			encodingKey[i] = (byte) (-key[i]);
+		}
+
+		FileCipher.decrypt(source, target, type, encodingKey, false);
+
+		return key;
+	}
+
+	/**
+	 * Method that finds the key of a file from a stratified sample, and checks it on a second sample
+	 * @param file the encoded file
+	 * @param type the method used to encode : 0 = Caesar, 1 = Vigenere
+	 * @param sampleSize the number of bytes of each sample
+	 * @param strata the number of strata
+	 * @param seed the seed of the positions of the segments
+	 * @return the decoding key (one byte for Caesar), or null if it could not be found or verified
+	 */
+
+	public static byte[] findKey(Path file, int type, int sampleSize, int strata, long seed) throws IOException {
+
+		assert(file != null);
+		assert(sampleSize > 0);
+		assert(strata > 0);
+
+		if (type != Encrypt.CAESAR && type != Encrypt.VIGENERE) {
+
+			throw new IllegalArgumentException("No sampling key recovery for the encryption type : " + type);
+		}
+
+		Random random = new Random(seed);
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+			byte[][] segments = sample(channel, sampleSize, strata, random, true);
+
+			byte[] key = (type == Encrypt.CAESAR) ? caesarKey(segments) : vigenereKey(segments);
+
+			if (key == null || !verify(sample(channel, sampleSize, strata, random, false), key)) {
+
+				return null;
+			}
+
+			return key;
+		}
+	}
+
+	//-----------------------Sampling-------------------------
+
+	/**
+	 * Reads a segment at a random position in each stratum of the file, the whole file if it is not larger than the sample
+	 * @param anchored if true, the first segment starts at the beginning of the file
+	 */
+
+	private static byte[][] sample(FileChannel channel, int sampleSize, int strata, Random random, boolean anchored) throws IOException {
+
+		long size = channel.size();
+
+		if (size <= sampleSize) {
+
+			byte[] whole = new byte[(int) size];
+			RangeDecryptor.read(channel, 0, whole, whole.length);
+
+			return new byte[][] {whole};
+		}
+
+		int segmentSize = Math.max(1, sampleSize / strata);
+		long stratumSize = size / strata;
+		byte[][] segments = new byte[strata][];
+
+		for (int i = 0; i < strata; i++) {
+
+			long start = i * stratumSize;
+			long freedom = Math.max(0, stratumSize - segmentSize);
+			long offset = (anchored && i == 0) ? 0 : start + (long) (random.nextDouble() * freedom);
+			int length = (int) Math.min(segmentSize, size - offset);
+
+			segments[i] = new byte[length];
+			RangeDecryptor.read(channel, offset, segments[i], length);
+		}
+
+		return segments;
+	}
+
+	//-----------------------Caesar-------------------------
+
+	private static byte[] caesarKey(byte[][] segments) {
+
+		int total = 0;
+
+		for (byte[] segment : segments) {
+
+			total += segment.length;
+		}
+
+		byte[] sample = new byte[total];
+		int position = 0;
+
+		for (byte[] segment : segments) {
+
+			System.arraycopy(segment, 0, sample, position, segment.length);
+			position += segment.length;
+		}
+
+		return new byte[] {Decrypt.caesarWithFrequencies(sample)};
+	}
+
+	//-----------------------Vigenere-------------------------
+
+	private static byte[] vigenereKey(byte[][] segments) {
+
+		int[] lengths = new int[segments.length];
+		int[] coincidences = new int[MAXSHIFT];
+
+		// Les coïncidences ne dépendent pas de la position dans le mot-clé : on additionne celles de tous les segments
+
+		for (int s = 0; s < segments.length; s++) {
+
+			byte[] noSpace = segments[s].clone();
+			lengths[s] = Decrypt.removeSpaces(noSpace, noSpace.length);
+			segments[s] = noSpace;
+
+			if (lengths[s] >= 2) {
+
+				int[] counted = Autocorrelation.coincidences(noSpace, lengths[s], MAXSHIFT);
+
+				for (int i = 0; i < counted.length; i++) {
+
+					coincidences[i] += counted[i];
+				}
+			}
+		}
+
+		int keyLength = Decrypt.vigenereFindKeyLength(coincidences);
+
+		if (keyLength == 0) {
+
+			return null;
+		}
+
+		int[][] merged = columnHistograms(segments[0], lengths[0], keyLength);
+
+		for (int s = 1; s < segments.length; s++) {
+
+			int[][] histograms = columnHistograms(segments[s], lengths[s], keyLength);
+			int rotation = bestRotation(merged, histograms);
+
+			for (int column = 0; column < keyLength; column++) {
+
+				int[] target = merged[(column + rotation) % keyLength];
+
+				for (int symbol = 0; symbol < Decrypt.ALPHABETSIZE; symbol++) {
+
+					target[symbol] += histograms[column][symbol];
+				}
+			}
+		}
+
+		byte[] key = new byte[keyLength];
+
+		for (int column = 0; column < keyLength; column++) {
+
+			key[column] = Decrypt.caesarFindKey(frequencies(merged[column]));
+		}
+
+		return key;
+	}
+
+	/**
+	 * @return the histogram of each column of a text without space, for a key of the given length
+	 */
+
+	private static int[][] columnHistograms(byte[] text, int length, int keyLength) {
+
+		int[][] histograms = new int[keyLength][Decrypt.ALPHABETSIZE];
+
+		for (int i = 0; i < length; i++) {
+
+			histograms[i % keyLength][text[i] + 128]++;
+		}
+
+		return histograms;
+	}
+
+	/**
+	 * Finds the rotation r for which the column c of the histograms has the closest distribution to the column c + r
+	 * of the reference : two columns encoded with the same key byte have their peaks at the same places
+	 */
+
+	private static int bestRotation(int[][] reference, int[][] histograms) {
+
+		int keyLength = reference.length;
+		double bestScore = -1;
+		int bestRotation = 0;
+
+		for (int rotation = 0; rotation < keyLength; rotation++) {
+
+			double score = 0;
+
+			for (int column = 0; column < keyLength; column++) {
+
+				float[] a = frequencies(histograms[column]);
+				float[] b = frequencies(reference[(column + rotation) % keyLength]);
+
+				for (int symbol = 0; symbol < Decrypt.ALPHABETSIZE; symbol++) {
+
+					score += a[symbol] * b[symbol];
+				}
+			}
+
+			if (score > bestScore) {
+
+				bestScore = score;
+				bestRotation = rotation;
+			}
+		}
+
+		return bestRotation;
+	}
+
+	private static float[] frequencies(int[] histogram) {
+
+		float[] frequencies = new float[Decrypt.ALPHABETSIZE];
+		int total = 0;
+
+		for (int count : histogram) {
+
+			total += count;
+		}
+
+		for (int symbol = 0; symbol < Decrypt.ALPHABETSIZE && total != 0; symbol++) {
+
+			frequencies[symbol] = (float) histogram[symbol] / total;
+		}
+
+		return frequencies;
+	}
+
+	//-----------------------Verification-------------------------
+
+	/**
+	 * Decodes each segment with the key, at the position in the keyword which looks the most like English for Vigenere,
+	 * and checks that the letters decoded by each byte of the key look like English : a single wrong key byte is enough
+	 * to fail the test, while it barely changes the score of the whole sample
+	 */
+
+	private static boolean verify(byte[][] segments, byte[] key) {
+
+		int[][] counts = new int[key.length][26];
+		int[] totals = new int[key.length];
+
+		for (byte[] segment : segments) {
+
+			byte[] decoded = new byte[segment.length];
+			double bestScore = -1;
+			int bestPhase = 0;
+
+			for (int phase = 0; phase < key.length; phase++) {
+
+				Encrypt.vigenere(segment, 0, decoded, 0, segment.length, key, phase, false);
+
+				double score = englishScore(decoded);
+
+				if (score > bestScore) {
+
+					bestScore = score;
+					bestPhase = phase;
+				}
+			}
+
+			Encrypt.vigenere(segment, 0, decoded, 0, segment.length, key, bestPhase, false);
+
+			// Comme Encrypt.vigenere, on n'avance dans la clé que sur les bytes qui ne sont pas des espaces
+
+			for (int i = 0, column = bestPhase; i < segment.length; i++) {
+
+				if (segment[i] != Encrypt.SPACE) {
+
+					totals[column]++;
+
+					if (decoded[i] >= 'a' && decoded[i] <= 'z') {
+
+						counts[column][decoded[i] - 'a']++;
+					}
+
+					column = (column + 1) % key.length;
+				}
+			}
+		}
+
+		for (int column = 0; column < key.length; column++) {
+
+			if (totals[column] != 0 && score(counts[column], totals[column]) < MINSCORE) {
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static double englishScore(byte[] text) {
+
+		int[] counts = new int[26];
+		int total = 0;
+
+		for (byte b : text) {
+
+			if (b != Encrypt.SPACE) {
+
+				total++;
+
+				if (b >= 'a' && b <= 'z') {
+
+					counts[b - 'a']++;
+				}
+			}
+		}
+
+		return score(counts, total);
+	}
+
+	/**
+	 * @return the scalar product between the frequencies of the letters and the English frequencies :
+	 * about 0.065 for English, and less than 0.045 for letters shifted by random keys
+	 */
+
+	private static double score(int[] counts, int total) {
+
+		double score = 0;
+
+		for (int i = 0; i < counts.length && total != 0; i++) {
+
+			score += Decrypt.ENGLISHFREQUENCIES[i] * counts[i] / total;
+		}
+
+		return score;
+	}
+}
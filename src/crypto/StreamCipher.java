@@ -0,0 +1,191 @@
+package crypto;
+
+/**
+ * Stateful version of the Encrypt schemes, meant to be fed a message chunk by chunk.
+ * The state that the byte array methods keep in local variables (the Vigenere keyword index,
+ * the CBC pad and the one time pad offset) is kept between two calls to update, so that
+ * encoding a message in several chunks gives exactly the same result as encoding it at once.
+ */
+
+public class StreamCipher {
+
+	private final int type;
+	private final byte[] key;
+	private final boolean spaceEncoding;
+	private final boolean decrypt;
+
+	// Etat conservé entre deux appels à update
+
+	private int keywordIndex;
+	private final byte[] pad;
+	private long position;
+
+	private StreamCipher(int type, byte[] key, boolean spaceEncoding, boolean decrypt) {
+
+		assert(key != null);
+		assert(key.length > 0);
+
+		this.type = type;
+		this.spaceEncoding = spaceEncoding;
+		this.decrypt = decrypt;
+
+		switch (type) {
+
+			case Encrypt.CAESAR :
+			case Encrypt.VIGENERE :
+
+				// On décrypte avec l'inverse de la clé de cryptage
+
+				this.key = decrypt ? negate(key) : key.clone();
+				this.pad = null;
+				break;
+
+			case Encrypt.XOR :
+			case Encrypt.ONETIME :
+
+				// Le XOR et le one time pad sont leur propre inverse, et le pad n'est pas copié pour ne pas doubler la mémoire
+
+				this.key = (type == Encrypt.XOR) ? key.clone() : key;
+				this.pad = null;
+				break;
+
+			case Encrypt.CBC :
+
+				this.key = key;
+				this.pad = key.clone();
+				break;
+
+			default :
+
+				throw new IllegalArgumentException("Unknown encryption type : " + type);
+		}
+	}
+
+	/**
+	 * Creates a stream cipher encoding with the given scheme
+	 * @param type the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad, 4 = CBC
+	 * @param key the key (Caesar and XOR only use the first byte), the pad for the one time pad or the iv for CBC
+	 * @param spaceEncoding if false, then spaces are not encoded (ignored by the one time pad and CBC which always encode them)
+	 * @return the stream cipher
+	 */
+
+	public static StreamCipher encrypting(int type, byte[] key, boolean spaceEncoding) {
+
+		return new StreamCipher(type, key, spaceEncoding, false);
+	}
+
+	/**
+	 * Creates a stream cipher encoding with the given scheme, spaces are not encoded
+	 * @param type the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad, 4 = CBC
+	 * @param key the key, the pad for the one time pad or the iv for CBC
+	 * @return the stream cipher
+	 */
+
+	public static StreamCipher encrypting(int type, byte[] key) {
+
+		return encrypting(type, key, false);
+	}
+
+	/**
+	 * Creates a stream cipher decoding a message encoded with the given scheme and the given encoding key
+	 * @param type the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad, 4 = CBC
+	 * @param key the key used to encode, the pad for the one time pad or the iv for CBC
+	 * @param spaceEncoding must be the same as the one used to encode
+	 * @return the stream cipher
+	 */
+
+	public static StreamCipher decrypting(int type, byte[] key, boolean spaceEncoding) {
+
+		return new StreamCipher(type, key, spaceEncoding, true);
+	}
+
+	/**
+	 * Creates a stream cipher decoding a message encoded with the given scheme, spaces were not encoded
+	 * @param type the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad, 4 = CBC
+	 * @param key the key used to encode, the pad for the one time pad or the iv for CBC
+	 * @return the stream cipher
+	 */
+
+	public static StreamCipher decrypting(int type, byte[] key) {
+
+		return decrypting(type, key, false);
+	}
+
+	/**
+	 * Encodes (or decodes) the next chunk of the message in place
+	 * @param buffer the array containing the chunk
+	 * @param offset the index of the first byte of the chunk
+	 * @param length the number of bytes of the chunk
+	 */
+
+	public void update(byte[] buffer, int offset, int length) {
+
+		assert(buffer != null);
+		assert(offset >= 0 && length >= 0 && offset + length <= buffer.length);
+
+		switch (type) {
+
+			case Encrypt.CAESAR :
+
+				Encrypt.caesar(buffer, offset, buffer, offset, length, key[0], spaceEncoding);
+				break;
+
+			case Encrypt.XOR :
+
+				Encrypt.xor(buffer, offset, buffer, offset, length, key[0], spaceEncoding);
+				break;
+
+			case Encrypt.VIGENERE :
+
+				keywordIndex = Encrypt.vigenere(buffer, offset, buffer, offset, length, key, keywordIndex, spaceEncoding);
+				break;
+
+			case Encrypt.ONETIME :
+
+				if (position + length > key.length) {
+
+					throw new IllegalStateException("The one time pad is shorter than the message");
+				}
+
+				Encrypt.oneTimePad(buffer, offset, buffer, offset, length, key, (int) position);
+				break;
+
+			case Encrypt.CBC :
+
+				int padIndex = (int) (position % pad.length);
+
+				if (decrypt) {
+
+					Decrypt.decryptCBC(buffer, offset, buffer, offset, length, pad, padIndex);
+
+				} else {
+
+					Encrypt.cbc(buffer, offset, buffer, offset, length, pad, padIndex);
+				}
+				break;
+		}
+
+		position += length;
+	}
+
+	/**
+	 * @return the number of bytes processed so far
+	 */
+
+	public long getPosition() {
+
+		return position;
+	}
+
+	private static byte[] negate(byte[] key) {
+
+		byte[] negated = new byte[key.length];
+
+		for (int i = 0; i < key.length; i++) {
+
+			negated[i] = (byte) (-key[i]);
+		}
+
+		return negated;
+	}
+}
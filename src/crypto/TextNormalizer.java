@@ -0,0 +1,151 @@
+package crypto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Single pass replacement for the regular expressions of Helper.cleanString : lower case letters and spaces are kept,
+ * upper case letters are turned into lower case, the punctuation ":,;." becomes a space and everything else is removed.
+ * Each byte is looked up in a table of 256 entries, so the text is cleaned in one pass, in place or into a given buffer.
+ */
+
+public class TextNormalizer {
+
+	public static final int BUFFERSIZE = 64 * 1024;
+
+	// -1 pour les caractères supprimés, sinon le caractère nettoyé
+	private static final byte[] TABLE = new byte[256];
+
+	static {
+
+		for (int c = 0; c < TABLE.length; c++) {
+
+			if (c >= 'a' && c <= 'z' || c == ' ') {
+
+				TABLE[c] = (byte) c;
+
+			} else if (c >= 'A' && c <= 'Z') {
+
+				TABLE[c] = (byte) (c - 'A' + 'a');
+
+			} else if (c == ':' || c == ',' || c == ';' || c == '.') {
+
+				TABLE[c] = ' ';
+
+			} else {
+
+				TABLE[c] = -1;
+			}
+		}
+	}
+
+	/**
+	 * Method that cleans a String, same result as the regular expression version of Helper.cleanString
+	 * @param s the string to clean
+	 * @return the string cleaned
+	 */
+
+	public static String normalize(String s) {
+
+		assert(s != null);
+
+		byte[] cleaned = new byte[s.length()];
+		int length = 0;
+
+		for (int i = 0; i < s.length(); i++) {
+
+			char c = s.charAt(i);
+			byte b;
+
+			if (c < TABLE.length) {
+
+				b = TABLE[c];
+
+			} else {
+
+				// Quelques caractères hors Latin-1 deviennent une lettre ASCII en minuscule (par exemple le signe Kelvin)
+
+				char lower = Character.toLowerCase(c);
+				b = (lower >= 'a' && lower <= 'z') ? (byte) lower : -1;
+			}
+
+			if (b != -1) {
+
+				cleaned[length] = b;
+				length++;
+			}
+		}
+
+		return new String(cleaned, 0, length, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Method that cleans a part of a byte array (read as ISO-8859-1) into a given array.
+	 * src and dst can be the same array, with dstOff <= srcOff, to clean in place.
+	 * dst only needs room for the cleaned text, and no byte of dst after it is modified.
+	 * @param src the byte array containing the text to clean
+	 * @param srcOff the index of the first byte to clean
+	 * @param dst the byte array receiving the cleaned text
+	 * @param dstOff the index in dst of the first cleaned byte
+	 * @param len the number of bytes to clean
+	 * @return the number of bytes written in dst
+	 */
+
+	public static int normalize(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+
+		assert(src != null);
+		assert(dst != null);
+
+		// On s'arrête au dernier byte gardé : la dernière écriture est alors celle d'un byte gardé,
+		// et aucune écriture ne dépasse le texte nettoyé
+
+		int end = len;
+
+		while (end > 0 && TABLE[src[srcOff + end - 1] & 0xFF] < 0) {
+
+			end--;
+		}
+
+		int written = 0;
+
+		for (int i = 0; i < end; i++) {
+
+			byte b = TABLE[src[srcOff + i] & 0xFF];
+
+			// Pas de branche : on écrit toujours, mais on n'avance que si le byte est gardé
+
+			dst[dstOff + written] = b;
+			written += ~b >>> 31;
+		}
+
+		return written;
+	}
+
+	/**
+	 * Method that cleans a whole stream into another stream, using a buffer of fixed size
+	 * @param in the stream to clean
+	 * @param out the stream receiving the cleaned text
+	 * @return the number of bytes written
+	 */
+
+	public static long normalize(InputStream in, OutputStream out) throws IOException {
+
+		assert(in != null);
+		assert(out != null);
+
+		byte[] buffer = new byte[BUFFERSIZE];
+		long total = 0;
+		int count;
+
+		while ((count = in.read(buffer, 0, buffer.length)) != -1) {
+
+			int length = normalize(buffer, 0, buffer, 0, count);
+			out.write(buffer, 0, length);
+			total += length;
+		}
+
+		return total;
+	}
+}
@@ -0,0 +1,137 @@
+package crypto;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Word at a time XOR loops used by Encrypt.xor, Encrypt.oneTimePad and Decrypt.decryptCBC.
+ * The bytes are read and written 8 by 8 as longs, and the spaces that must not be encoded are found
+ * with a SWAR compare (zero byte test on the word XOR 0x2020...) and kept with a mask blend.
+ * The last (len % 8) bytes are handled by the scalar loop.
+ */
+
+final class XorKernel {
+
+	static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+	private static final long ONES = 0x0101010101010101L;
+	private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+	private static final long SPACES = ONES * Encrypt.SPACE;
+
+	private XorKernel() {}
+
+	/**
+	 * @param word 8 bytes packed in a long
+	 * @return a long with 0x80 in each byte of word equal to 0, and 0x00 elsewhere
+	 */
+
+	static long zeroBytes(long word) {
+
+		// Test exact (sans faux positifs dûs aux retenues) : le bit de poids fort reste à 0 seulement si le byte vaut 0
+
+		return ~(((word & LOW7) + LOW7) | word | LOW7);
+	}
+
+	/**
+	 * @return the number of spaces in the given part of the array
+	 */
+
+	static int countSpaces(byte[] array, int offset, int length) {
+
+		int count = 0;
+		int i = 0;
+
+		for (; i + Long.BYTES <= length; i += Long.BYTES) {
+
+			count += Long.bitCount(zeroBytes((long) LONGS.get(array, offset + i) ^ SPACES));
+		}
+
+		for (; i < length; i++) {
+
+			if (array[offset + i] == Encrypt.SPACE) {
+
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * dst = src XOR key, where the spaces of src are kept if spaceEncoding is false
+	 */
+
+	static void xor(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte key, boolean spaceEncoding) {
+
+		long keyWord = ONES * (key & 0xFF);
+		int i = 0;
+
+		for (; i + Long.BYTES <= len; i += Long.BYTES) {
+
+			long word = (long) LONGS.get(src, srcOff + i);
+			long mask = keyWord;
+
+			if (!spaceEncoding) {
+
+				// On étend le bit 0x80 de chaque espace trouvé à tout le byte, puis on enlève ces bytes de la clé
+
+				long spaces = zeroBytes(word ^ SPACES);
+				mask &= ~((spaces >>> 7) * 0xFF);
+			}
+
+			LONGS.set(dst, dstOff + i, word ^ mask);
+		}
+
+		for (; i < len; i++) {
+
+			byte current = src[srcOff + i];
+			dst[dstOff + i] = (current != Encrypt.SPACE || spaceEncoding) ? (byte) (current ^ key) : Encrypt.SPACE;
+		}
+	}
+
+	/**
+	 * dst = a XOR b, byte by byte.
+	 * dst can be the same array as a or b only with the same offset, or when dst is before them (the loop goes forward)
+	 */
+
+	static void xor(byte[] a, int aOff, byte[] b, int bOff, byte[] dst, int dstOff, int len) {
+
+		int i = 0;
+
+		for (; i + Long.BYTES <= len; i += Long.BYTES) {
+
+			long word = (long) LONGS.get(a, aOff + i) ^ (long) LONGS.get(b, bOff + i);
+			LONGS.set(dst, dstOff + i, word);
+		}
+
+		for (; i < len; i++) {
+
+			dst[dstOff + i] = (byte) (a[aOff + i] ^ b[bOff + i]);
+		}
+	}
+
+	/**
+	 * dst = a XOR b, where b is read in a ByteBuffer (heap, direct or mapped) at absolute indices
+	 */
+
+	static void xor(byte[] a, int aOff, ByteBuffer b, int bOff, byte[] dst, int dstOff, int len) {
+
+		// Même ordre des bytes que LONGS, pour que chaque byte soit XORé avec le byte du pad à la même position
+
+		ByteBuffer words = b.duplicate().order(ByteOrder.nativeOrder());
+		int i = 0;
+
+		for (; i + Long.BYTES <= len; i += Long.BYTES) {
+
+			long word = (long) LONGS.get(a, aOff + i) ^ words.getLong(bOff + i);
+			LONGS.set(dst, dstOff + i, word);
+		}
+
+		for (; i < len; i++) {
+
+			dst[dstOff + i] = (byte) (a[aOff + i] ^ b.get(bOff + i));
+		}
+	}
+}